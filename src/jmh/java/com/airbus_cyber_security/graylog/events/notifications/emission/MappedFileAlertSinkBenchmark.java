@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.google.common.eventbus.EventBus;
+import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the throughput of the memory-mapped file sink when several notification threads emit at once.
+ * Run it with different numbers of threads (JMH option -t) to compare the scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedFileAlertSinkBenchmark {
+
+    private static final String MESSAGE = "type: alert | id: EventId | severity: low | app: graylog | subject: Event Definition Title"
+            + " | body: Event Definition Description | src: 10.0.0.1 | dest: 192.168.1.1";
+
+    private Path directory;
+
+    private MappedFileAlertSink subject;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory(Path.of(System.getProperty("java.io.tmpdir")), "logging-alert-benchmark");
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder()
+                .accessFileSinkDirectory(this.directory.toString())
+                .accessFileSinkSyncBatch(0)
+                .build();
+        ClusterConfigService clusterConfigService = mock(ClusterConfigService.class);
+        when(clusterConfigService.getOrDefault(eq(LoggingAlertConfig.class), any())).thenReturn(config);
+        LoggingAlertConfigCache configCache = new LoggingAlertConfigCache(clusterConfigService, new EventBus());
+        this.subject = new MappedFileAlertSink(configCache, new LoggerAlertSink());
+        this.subject.startAsync().awaitRunning();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.subject.stopAsync().awaitTerminated();
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            for (Path path: paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void emit() {
+        this.subject.emit("LoggingAlert", MESSAGE);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationConfig;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationSettings;
+import org.graylog.events.processor.EventDefinitionDto;
+import org.graylog.events.processor.EventProcessorConfig;
+import org.graylog.events.processor.aggregation.AggregationEventProcessorConfig;
+import org.graylog.scheduler.JobSchedule;
+import org.graylog.scheduler.JobTriggerDto;
+import org.graylog2.plugin.MessageSummary;
+import org.graylog2.plugin.streams.Stream;
+import org.joda.time.DateTime;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Data shared by the benchmarks, close to what a Graylog server hands to the notification.
+ */
+final class BenchmarkFixtures {
+
+    static final DateTime DUMMY_TIME = DateTime.parse("2023-06-21T14:43:25Z");
+
+    static final String SEPARATOR = " | ";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Subset of the Graylog object mapper (see ObjectMapperProvider) with the modules needed to build the template models.
+     */
+    static ObjectMapper buildObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new GuavaModule())
+                .registerModule(new Jdk8Module())
+                .registerModule(new JodaModule());
+    }
+
+    /**
+     * Stands for a message read from the search backend, without the Graylog message machinery.
+     */
+    private static final class StubMessageSummary extends MessageSummary {
+
+        private final String id;
+
+        private final DateTime timestamp;
+
+        private final Map<String, Object> fields;
+
+        StubMessageSummary(String id, DateTime timestamp, Map<String, Object> fields) {
+            super("graylog_0", null);
+            this.id = id;
+            this.timestamp = timestamp;
+            this.fields = fields;
+        }
+
+        @Override
+        public String getId() {
+            return this.id;
+        }
+
+        @Override
+        public String getSource() {
+            return "source";
+        }
+
+        @Override
+        public String getMessage() {
+            return "User " + this.fields.get("user") + " logged in";
+        }
+
+        @Override
+        public DateTime getTimestamp() {
+            return this.timestamp;
+        }
+
+        @Override
+        public Collection<String> getStreamIds() {
+            return ImmutableList.of(Stream.DEFAULT_STREAM_ID);
+        }
+
+        @Override
+        public Map<String, Object> getFields() {
+            return this.fields;
+        }
+
+        @Override
+        public boolean hasField(String key) {
+            return this.fields.containsKey(key);
+        }
+
+        @Override
+        public Object getField(String key) {
+            return this.fields.get(key);
+        }
+    }
+
+    static ImmutableList<MessageSummary> buildBacklog(int size) {
+        ImmutableList.Builder<MessageSummary> backlog = ImmutableList.builder();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> fields = ImmutableMap.<String, Object>builder()
+                    .put("src_ip", "10.0.0." + (i % 256))
+                    .put("src_category", "workstation")
+                    .put("dest_ip", "192.168.1." + (i % 256))
+                    .put("dest_category", "server")
+                    .put("user", "user" + (i % 100))
+                    .put("action", "login")
+                    .build();
+            backlog.add(new StubMessageSummary("message" + i, DUMMY_TIME.minusSeconds(i), fields));
+        }
+        return backlog.build();
+    }
+
+    static EventProcessorConfig buildAggregationConfig() {
+        return AggregationEventProcessorConfig.builder()
+                .query("action: login")
+                .streams(Collections.emptySet())
+                .groupBy(ImmutableList.of("user", "src_ip"))
+                .series(Collections.emptyList())
+                .searchWithinMs(60000)
+                .executeEveryMs(60000)
+                .build();
+    }
+
+    static EventNotificationContext buildContext(EventProcessorConfig processorConfig, EventNotificationConfig notificationConfig) {
+        EventDefinitionDto eventDefinition = EventDefinitionDto.builder()
+                .id("EventDefinitionId")
+                .alert(true)
+                .title("Event Definition Title")
+                .description("Event Definition Description")
+                .config(processorConfig)
+                .fieldSpec(ImmutableMap.of())
+                .priority(2)
+                .keySpec(ImmutableList.of())
+                .notificationSettings(EventNotificationSettings.withGracePeriod(0))
+                .build();
+        EventDto event = EventDto.builder()
+                .id("EventId")
+                .alert(true)
+                .eventDefinitionId("EventDefinitionId")
+                .eventDefinitionType(processorConfig.type())
+                .eventTimestamp(DUMMY_TIME)
+                .processingTimestamp(DUMMY_TIME)
+                .timerangeStart(DUMMY_TIME.minusMinutes(1))
+                .timerangeEnd(DUMMY_TIME)
+                .streams(ImmutableSet.of(Stream.DEFAULT_EVENTS_STREAM_ID))
+                .sourceStreams(ImmutableSet.of(Stream.DEFAULT_STREAM_ID))
+                .message("Event message")
+                .source("graylog")
+                .keyTuple(ImmutableList.of("user0", "10.0.0.0"))
+                .key("user0|10.0.0.0")
+                .priority(2)
+                .fields(ImmutableMap.of("aggregation_id", "aggregationId"))
+                .groupByFields(ImmutableMap.of("user", "user0", "src_ip", "10.0.0.0"))
+                .build();
+        JobTriggerDto jobTrigger = JobTriggerDto.builder()
+                .id("JobTriggerId")
+                .jobDefinitionId("JobDefinitionId")
+                .jobDefinitionType("event-processor-execution-v1")
+                .schedule(new JobSchedule.FallbackSchedule())
+                .triggeredAt(DUMMY_TIME)
+                .build();
+        return EventNotificationContext.builder()
+                .notificationId("NotificationId")
+                .notificationConfig(notificationConfig)
+                .eventDefinition(eventDefinition)
+                .event(event)
+                .jobTrigger(jobTrigger)
+                .build();
+    }
+}
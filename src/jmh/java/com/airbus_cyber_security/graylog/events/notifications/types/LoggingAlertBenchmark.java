@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.coalescing.EventCoalescer;
+import com.airbus_cyber_security.graylog.events.notifications.dedup.AlertDeduplicator;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AsyncAlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.emission.LoggerAlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.execution.OffloadExecutor;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LoggingAlertMetrics;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.NotificationStatistics;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterOverflowBudget;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.OverflowDigest;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.TagRateLimiter;
+import com.airbus_cyber_security.graylog.events.notifications.spool.AlertSpool;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogAlertSink;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.eventbus.EventBus;
+import org.graylog.events.notifications.DBNotificationService;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationException;
+import org.graylog.events.notifications.EventNotificationService;
+import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures a whole notification: detect time, event model, rendering and emission to a sink which discards the logs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingAlertBenchmark {
+
+    private static final List<String> JSON_FIELDS = List.of("logging_alert.id", "logging_alert.title", "logging_alert.severity",
+            "logging_alert.detect_time", "logging_alert.messages_url", "event_definition_title", "event.message",
+            "message.source", "message.message", "message.fields.user", "message.fields.action");
+
+    @Param({"1", "100", "1000", "10000"})
+    public int backlogSize;
+
+    @Param({"SIMPLE", "DEFAULT", "COMPLEX"})
+    public TemplateComplexity templateComplexity;
+
+    @Param({"false", "true"})
+    public boolean singleMessage;
+
+    // Note: the template complexity does not apply to the JSON output format
+    @Param({"TEMPLATE", "JSON"})
+    public OutputFormat outputFormat;
+
+    private LoggingAlert subject;
+
+    private EventNotificationContext context;
+
+    private ParallelMessageRenderer parallelRenderer;
+
+    private static final class DiscardingSink extends LoggerAlertSink {
+
+        private long emittedLength;
+
+        @Override
+        public void emit(String tag, String message) {
+            this.emittedLength += message.length();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        ClusterConfigService clusterConfigService = mock(ClusterConfigService.class);
+        when(clusterConfigService.getOrDefault(eq(LoggingAlertConfig.class), any())).thenReturn(LoggingAlertConfig.createDefault());
+        LoggingAlertConfigCache configCache = new LoggingAlertConfigCache(clusterConfigService, new EventBus());
+
+        this.context = BenchmarkFixtures.buildContext(BenchmarkFixtures.buildAggregationConfig(),
+                LoggingNotificationConfig.builder()
+                        .logBody(this.templateComplexity.logBody())
+                        .singleMessage(this.singleMessage)
+                        .outputFormat(this.outputFormat)
+                        .jsonFields(JSON_FIELDS)
+                        .build());
+        EventNotificationService notificationService = mock(EventNotificationService.class);
+        when(notificationService.getBacklogForEvent(this.context)).thenReturn(BenchmarkFixtures.buildBacklog(this.backlogSize));
+
+        MetricRegistry metricRegistry = new MetricRegistry();
+        LoggingAlertMetrics metrics = new LoggingAlertMetrics(metricRegistry);
+        MessageBodyBuilder messageBodyBuilder = new MessageBodyBuilder(BenchmarkFixtures.buildObjectMapper(),
+                new NotificationTitleCache(mock(DBNotificationService.class)), new MessagesURLBuilder(), metrics);
+        AsyncAlertEmitter asyncEmitter = new AsyncAlertEmitter(configCache, new DiscardingSink(), metricRegistry);
+        AlertEmitter alertEmitter = new AlertEmitter(new DiscardingSink(), asyncEmitter,
+                new SyslogAlertSink(new DiscardingSink(), metricRegistry),
+                new AlertSpool(configCache, new DiscardingSink(), metricRegistry), metricRegistry);
+
+        this.parallelRenderer = new ParallelMessageRenderer();
+        this.parallelRenderer.startAsync().awaitRunning();
+
+        BacklogSource backlogSource = new BacklogSource(notificationService, Map.of());
+        this.subject = new LoggingAlert(configCache, backlogSource, messageBodyBuilder, new TemplateCache(), alertEmitter,
+                this.parallelRenderer, new TagRateLimiter(),
+                new ClusterOverflowBudget((key, amount, expiresAt) -> amount, metricRegistry), new OverflowDigest(),
+                new AlertDeduplicator(), metrics, new NotificationStatistics(), new JsonLogEncoder(), new OffloadExecutor(configCache, metricRegistry), new EventCoalescer());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.parallelRenderer.stopAsync().awaitTerminated();
+    }
+
+    @Benchmark
+    public void execute() throws EventNotificationException {
+        this.subject.execute(this.context);
+    }
+}
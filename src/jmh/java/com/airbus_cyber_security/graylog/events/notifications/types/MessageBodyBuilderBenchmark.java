@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LoggingAlertMetrics;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.DBNotificationService;
+import org.graylog2.plugin.MessageSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBodyBuilderBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int backlogSize;
+
+    @Param({"SIMPLE", "DEFAULT", "COMPLEX"})
+    public TemplateComplexity templateComplexity;
+
+    private MessageBodyBuilder subject;
+
+    private CompiledTemplate template;
+
+    private Map<String, Object> eventModel;
+
+    private ImmutableList<MessageSummary> backlog;
+
+    @Setup
+    public void setup() {
+        this.subject = new MessageBodyBuilder(BenchmarkFixtures.buildObjectMapper(),
+                new NotificationTitleCache(mock(DBNotificationService.class)), new MessagesURLBuilder(),
+                new LoggingAlertMetrics(new MetricRegistry()));
+        this.template = new TemplateCache().get("NotificationId", this.templateComplexity.logBody(), BenchmarkFixtures.SEPARATOR);
+        EventNotificationContext context = BenchmarkFixtures.buildContext(BenchmarkFixtures.buildAggregationConfig(),
+                LoggingNotificationConfig.builder().build());
+        this.eventModel = this.subject.buildEventModel(context, BenchmarkFixtures.DUMMY_TIME, 0);
+        this.backlog = BenchmarkFixtures.buildBacklog(this.backlogSize);
+    }
+
+    @Benchmark
+    public void buildMessageBodyForMessage(Blackhole blackhole) {
+        for (MessageSummary message: this.backlog) {
+            blackhole.consume(this.subject.buildMessageBodyForMessage(this.template, this.eventModel, message));
+        }
+    }
+
+    @Benchmark
+    public String buildMessageBodyForBacklog() {
+        return this.subject.buildMessageBodyForBacklog(this.template, this.eventModel, this.backlog);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.processor.EventProcessorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessagesURLBuilderBenchmark {
+
+    @Param({"aggregation", "correlation-count"})
+    public String definitionType;
+
+    private MessagesURLBuilder subject;
+
+    private EventNotificationContext context;
+
+    @Setup
+    public void setup() {
+        this.subject = new MessagesURLBuilder();
+        EventProcessorConfig processorConfig = "aggregation".equals(this.definitionType)
+                ? BenchmarkFixtures.buildAggregationConfig()
+                : new MessagesURLBuilderTest.GeneratedDummyCorrelationCountProcessorConfig();
+        this.context = BenchmarkFixtures.buildContext(processorConfig, LoggingNotificationConfig.builder().build());
+    }
+
+    @Benchmark
+    public String buildMessagesUrl() {
+        return this.subject.buildMessagesUrl(this.context, BenchmarkFixtures.DUMMY_TIME);
+    }
+}
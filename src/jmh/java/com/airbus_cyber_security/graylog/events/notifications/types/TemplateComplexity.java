@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+
+/**
+ * Log templates, from a few fields up to a loop over the backlog with conditions.
+ */
+public enum TemplateComplexity {
+    SIMPLE("type: alert\n" +
+            "id: ${logging_alert.id}\n" +
+            "subject: ${event_definition_title}"),
+    DEFAULT(LoggingAlertConfig.BODY_TEMPLATE),
+    COMPLEX(LoggingAlertConfig.BODY_TEMPLATE +
+            "title: ${logging_alert.title}\n" +
+            "detect_time: ${logging_alert.detect_time}\n" +
+            "messages_url: ${logging_alert.messages_url}\n" +
+            "event_message: ${event.message}\n" +
+            "${foreach backlog message}" +
+            "${if message.fields.user} user: ${message.fields.user}${else} user: unknown${end}\n" +
+            "action: ${message.fields.action}\n" +
+            "source: ${message.source}\n" +
+            "message: ${message.message}\n" +
+            "${end}");
+
+    private final String logBody;
+
+    TemplateComplexity(String logBody) {
+        this.logBody = logBody;
+    }
+
+    String logBody() {
+        return this.logBody;
+    }
+}
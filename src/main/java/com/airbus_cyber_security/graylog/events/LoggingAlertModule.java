@@ -16,9 +16,26 @@
  */
 package com.airbus_cyber_security.graylog.events;
 
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigValidator;
 import com.airbus_cyber_security.graylog.events.contentpack.entities.LoggingNotificationConfigEntity;
+import com.airbus_cyber_security.graylog.events.notifications.coalescing.EventCoalescer;
+import com.airbus_cyber_security.graylog.events.notifications.dedup.RepeatedAlertPeriodical;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AsyncAlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.emission.ConfiguredAlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.emission.MappedFileAlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.execution.OffloadExecutor;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterBudgetPeriodical;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterBudgetStore;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.MongoClusterBudgetStore;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.OverflowDigestPeriodical;
+import com.airbus_cyber_security.graylog.events.notifications.spool.AlertSpool;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogAlertSink;
 import com.airbus_cyber_security.graylog.events.notifications.types.LoggingAlert;
 import com.airbus_cyber_security.graylog.events.notifications.types.LoggingNotificationConfig;
+import com.airbus_cyber_security.graylog.events.notifications.types.ParallelMessageRenderer;
+import com.airbus_cyber_security.graylog.events.rest.NotificationStatisticsResource;
 import org.graylog2.plugin.PluginConfigBean;
 import org.graylog2.plugin.PluginModule;
 
@@ -48,5 +65,20 @@ public class LoggingAlertModule extends PluginModule {
                 LoggingAlert.Factory.class,
                 LoggingNotificationConfigEntity.TYPE_NAME,
                 LoggingNotificationConfigEntity.class);
+
+        addClusterConfigValidator(LoggingAlertConfig.class, LoggingAlertConfigValidator.class);
+        bind(AlertSink.class).to(ConfiguredAlertSink.class);
+        bind(ClusterBudgetStore.class).to(MongoClusterBudgetStore.class);
+        addInitializer(AsyncAlertEmitter.class);
+        addInitializer(MappedFileAlertSink.class);
+        addInitializer(SyslogAlertSink.class);
+        addInitializer(AlertSpool.class);
+        addInitializer(OffloadExecutor.class);
+        addInitializer(EventCoalescer.class);
+        addInitializer(ParallelMessageRenderer.class);
+        addPeriodical(OverflowDigestPeriodical.class);
+        addPeriodical(RepeatedAlertPeriodical.class);
+        addPeriodical(ClusterBudgetPeriodical.class);
+        addRestResource(NotificationStatisticsResource.class);
     }
 }
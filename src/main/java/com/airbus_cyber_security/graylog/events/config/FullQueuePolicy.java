@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.config;
+
+/**
+ * What to do with a log when the asynchronous emission queue is full.
+ */
+public enum FullQueuePolicy {
+	/**
+	 * Wait until there is room in the queue.
+	 */
+	BLOCK,
+	/**
+	 * Log it directly with the overflow tag.
+	 */
+	DROP_TO_OVERFLOW,
+	/**
+	 * Fail the notification job, so that the scheduler retries it later.
+	 */
+	FAIL
+}
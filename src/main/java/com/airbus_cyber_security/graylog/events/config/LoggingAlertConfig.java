@@ -21,6 +21,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import org.graylog2.plugin.rest.ValidationResult;
 
 import jakarta.annotation.Nullable;
 
@@ -34,6 +35,24 @@ import jakarta.annotation.Nullable;
 public abstract class LoggingAlertConfig {
 
     private static final String FIELD_ALERT_ID = "id";
+    private static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 65536;
+    private static final int DEFAULT_PARALLEL_RENDERING_THRESHOLD = 1000;
+    private static final int DEFAULT_RATE_LIMIT_PERIOD = 60;
+    private static final int DEFAULT_OVERFLOW_DIGEST_INTERVAL = 60;
+    private static final String DEFAULT_FILE_SINK_DIRECTORY = "data/logging-alert";
+    private static final int DEFAULT_FILE_SINK_SEGMENT_SIZE = 64;
+    private static final int DEFAULT_FILE_SINK_ROLL_INTERVAL = 3600;
+    private static final int DEFAULT_FILE_SINK_SYNC_BATCH = 1000;
+    private static final int DEFAULT_BACKLOG_CAP = 0;
+    private static final int DEFAULT_OFFLOAD_CONCURRENCY = 256;
+    private static final String DEFAULT_SPOOL_DIRECTORY = "data/logging-alert-spool";
+    private static final int DEFAULT_SPOOL_MAX_SIZE = 256;
+    private static final int DEFAULT_CLUSTER_BUDGET_PERIOD = 60;
+    private static final int DEFAULT_CLUSTER_BUDGET_LEASE = 100;
+    // Note: the ring buffer of the asynchronous emission is sized to the next power of two
+    private static final int MAXIMUM_ASYNC_QUEUE_CAPACITY = 1 << 24;
+    // Note: a segment is mapped at once, its size in bytes must fit an int
+    private static final int MAXIMUM_FILE_SINK_SEGMENT_SIZE = 2047;
     private static final String SEPARATOR_TEMPLATE  = "\n";
     public static final String BODY_TEMPLATE =
                     "type: alert" + SEPARATOR_TEMPLATE +
@@ -79,22 +98,170 @@ public abstract class LoggingAlertConfig {
     @JsonProperty("overflow_tag")
     public abstract String accessOverflowTag();
 
+    @JsonProperty("async_emission")
+    public abstract boolean accessAsyncEmission();
+
+    @JsonProperty("async_queue_capacity")
+    public abstract int accessAsyncQueueCapacity();
+
+    @JsonProperty("async_full_queue_policy")
+    public abstract FullQueuePolicy accessAsyncFullQueuePolicy();
+
+    @JsonProperty("parallel_rendering_threshold")
+    public abstract int accessParallelRenderingThreshold();
+
+    @JsonProperty("rate_limit")
+    public abstract int accessRateLimit();
+
+    @JsonProperty("rate_limit_period")
+    public abstract int accessRateLimitPeriod();
+
+    @JsonProperty("overflow_digest")
+    public abstract boolean accessOverflowDigest();
+
+    @JsonProperty("overflow_digest_interval")
+    public abstract int accessOverflowDigestInterval();
+
+    @JsonProperty("sink")
+    public abstract SinkType accessSink();
+
+    @JsonProperty("file_sink_directory")
+    public abstract String accessFileSinkDirectory();
+
+    // Note: in megabytes
+    @JsonProperty("file_sink_segment_size")
+    public abstract int accessFileSinkSegmentSize();
+
+    // Note: in seconds
+    @JsonProperty("file_sink_roll_interval")
+    public abstract int accessFileSinkRollInterval();
+
+    @JsonProperty("file_sink_sync_batch")
+    public abstract int accessFileSinkSyncBatch();
+
+    // Note: 0 when the backlog is not capped
+    @JsonProperty("backlog_cap")
+    public abstract int accessBacklogCap();
+
+    @JsonProperty("offload_execution")
+    public abstract boolean accessOffloadExecution();
+
+    @JsonProperty("offload_concurrency")
+    public abstract int accessOffloadConcurrency();
+
+    @JsonProperty("spool")
+    public abstract boolean accessSpool();
+
+    @JsonProperty("spool_directory")
+    public abstract String accessSpoolDirectory();
+
+    // Note: in megabytes
+    @JsonProperty("spool_max_size")
+    public abstract int accessSpoolMaxSize();
+
+    // Note: 0 when there is no cluster budget
+    @JsonProperty("cluster_budget")
+    public abstract int accessClusterBudget();
+
+    // Note: in seconds
+    @JsonProperty("cluster_budget_period")
+    public abstract int accessClusterBudgetPeriod();
+
+    @JsonProperty("cluster_budget_lease")
+    public abstract int accessClusterBudgetLease();
+
+    // Note: fields added after the first version are nullable, so that previously saved configurations can still be read
     @JsonCreator
     public static LoggingAlertConfig create(
             @JsonProperty("separator") String separator,
             @JsonProperty("log_body") String logBody,
             @JsonProperty("limit_overflow") int limitOverflow,
             @JsonProperty("alert_tag") String alertTag,
-            @JsonProperty("overflow_tag") String overflowTag){
+            @JsonProperty("overflow_tag") String overflowTag,
+            @JsonProperty("async_emission") boolean asyncEmission,
+            @JsonProperty("async_queue_capacity") @Nullable Integer asyncQueueCapacity,
+            @JsonProperty("async_full_queue_policy") @Nullable FullQueuePolicy asyncFullQueuePolicy,
+            @JsonProperty("parallel_rendering_threshold") @Nullable Integer parallelRenderingThreshold,
+            @JsonProperty("rate_limit") @Nullable Integer rateLimit,
+            @JsonProperty("rate_limit_period") @Nullable Integer rateLimitPeriod,
+            @JsonProperty("overflow_digest") boolean overflowDigest,
+            @JsonProperty("overflow_digest_interval") @Nullable Integer overflowDigestInterval,
+            @JsonProperty("sink") @Nullable SinkType sink,
+            @JsonProperty("file_sink_directory") @Nullable String fileSinkDirectory,
+            @JsonProperty("file_sink_segment_size") @Nullable Integer fileSinkSegmentSize,
+            @JsonProperty("file_sink_roll_interval") @Nullable Integer fileSinkRollInterval,
+            @JsonProperty("file_sink_sync_batch") @Nullable Integer fileSinkSyncBatch,
+            @JsonProperty("backlog_cap") @Nullable Integer backlogCap,
+            @JsonProperty("offload_execution") boolean offloadExecution,
+            @JsonProperty("offload_concurrency") @Nullable Integer offloadConcurrency,
+            @JsonProperty("spool") boolean spool,
+            @JsonProperty("spool_directory") @Nullable String spoolDirectory,
+            @JsonProperty("spool_max_size") @Nullable Integer spoolMaxSize,
+            @JsonProperty("cluster_budget") @Nullable Integer clusterBudget,
+            @JsonProperty("cluster_budget_period") @Nullable Integer clusterBudgetPeriod,
+            @JsonProperty("cluster_budget_lease") @Nullable Integer clusterBudgetLease){
         return builder()
                 .accessSeparator(separator)
                 .accessLogBody(logBody)
                 .accessLimitOverflow(limitOverflow)
                 .accessAlertTag(alertTag)
                 .accessOverflowTag(overflowTag)
+                .accessAsyncEmission(asyncEmission)
+                .accessAsyncQueueCapacity(asyncQueueCapacity == null ? DEFAULT_ASYNC_QUEUE_CAPACITY : asyncQueueCapacity)
+                .accessAsyncFullQueuePolicy(asyncFullQueuePolicy == null ? FullQueuePolicy.BLOCK : asyncFullQueuePolicy)
+                .accessParallelRenderingThreshold(parallelRenderingThreshold == null ? DEFAULT_PARALLEL_RENDERING_THRESHOLD : parallelRenderingThreshold)
+                .accessRateLimit(rateLimit == null ? 0 : rateLimit)
+                .accessRateLimitPeriod(rateLimitPeriod == null ? DEFAULT_RATE_LIMIT_PERIOD : rateLimitPeriod)
+                .accessOverflowDigest(overflowDigest)
+                .accessOverflowDigestInterval(overflowDigestInterval == null ? DEFAULT_OVERFLOW_DIGEST_INTERVAL : overflowDigestInterval)
+                .accessSink(sink == null ? SinkType.LOGGER : sink)
+                .accessFileSinkDirectory(fileSinkDirectory == null ? DEFAULT_FILE_SINK_DIRECTORY : fileSinkDirectory)
+                .accessFileSinkSegmentSize(fileSinkSegmentSize == null ? DEFAULT_FILE_SINK_SEGMENT_SIZE : fileSinkSegmentSize)
+                .accessFileSinkRollInterval(fileSinkRollInterval == null ? DEFAULT_FILE_SINK_ROLL_INTERVAL : fileSinkRollInterval)
+                .accessFileSinkSyncBatch(fileSinkSyncBatch == null ? DEFAULT_FILE_SINK_SYNC_BATCH : fileSinkSyncBatch)
+                .accessBacklogCap(backlogCap == null ? DEFAULT_BACKLOG_CAP : backlogCap)
+                .accessOffloadExecution(offloadExecution)
+                .accessOffloadConcurrency(offloadConcurrency == null ? DEFAULT_OFFLOAD_CONCURRENCY : offloadConcurrency)
+                .accessSpool(spool)
+                .accessSpoolDirectory(spoolDirectory == null ? DEFAULT_SPOOL_DIRECTORY : spoolDirectory)
+                .accessSpoolMaxSize(spoolMaxSize == null ? DEFAULT_SPOOL_MAX_SIZE : spoolMaxSize)
+                .accessClusterBudget(clusterBudget == null ? 0 : clusterBudget)
+                .accessClusterBudgetPeriod(clusterBudgetPeriod == null ? DEFAULT_CLUSTER_BUDGET_PERIOD : clusterBudgetPeriod)
+                .accessClusterBudgetLease(clusterBudgetLease == null ? DEFAULT_CLUSTER_BUDGET_LEASE : clusterBudgetLease)
                 .build();
     }
 
+    /**
+     * Checks the bounds of the numeric settings, so that a configuration which would fail at runtime is not saved.
+     */
+    public ValidationResult validate() {
+        ValidationResult validation = new ValidationResult();
+        checkRange(validation, "limit_overflow", accessLimitOverflow(), 0, Integer.MAX_VALUE);
+        checkRange(validation, "async_queue_capacity", accessAsyncQueueCapacity(), 2, MAXIMUM_ASYNC_QUEUE_CAPACITY);
+        checkRange(validation, "parallel_rendering_threshold", accessParallelRenderingThreshold(), 0, Integer.MAX_VALUE);
+        checkRange(validation, "rate_limit", accessRateLimit(), 0, Integer.MAX_VALUE);
+        checkRange(validation, "rate_limit_period", accessRateLimitPeriod(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "overflow_digest_interval", accessOverflowDigestInterval(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "file_sink_segment_size", accessFileSinkSegmentSize(), 1, MAXIMUM_FILE_SINK_SEGMENT_SIZE);
+        checkRange(validation, "file_sink_roll_interval", accessFileSinkRollInterval(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "file_sink_sync_batch", accessFileSinkSyncBatch(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "backlog_cap", accessBacklogCap(), 0, Integer.MAX_VALUE);
+        checkRange(validation, "offload_concurrency", accessOffloadConcurrency(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "spool_max_size", accessSpoolMaxSize(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "cluster_budget", accessClusterBudget(), 0, Integer.MAX_VALUE);
+        checkRange(validation, "cluster_budget_period", accessClusterBudgetPeriod(), 1, Integer.MAX_VALUE);
+        checkRange(validation, "cluster_budget_lease", accessClusterBudgetLease(), 1, Integer.MAX_VALUE);
+        return validation;
+    }
+
+    private static void checkRange(ValidationResult validation, String field, int value, int minimum, int maximum) {
+        if (value < minimum) {
+            validation.addError(field, field + " must be at least " + minimum + ", got " + value);
+        } else if (value > maximum) {
+            validation.addError(field, field + " must be at most " + maximum + ", got " + value);
+        }
+    }
+
     public static LoggingAlertConfig createDefault() {
         return builder()
                 .accessSeparator(" | ")
@@ -102,6 +269,28 @@ public abstract class LoggingAlertConfig {
                 .accessLimitOverflow(0)
                 .accessAlertTag("LoggingAlert")
                 .accessOverflowTag("LoggingOverflow")
+                .accessAsyncEmission(false)
+                .accessAsyncQueueCapacity(DEFAULT_ASYNC_QUEUE_CAPACITY)
+                .accessAsyncFullQueuePolicy(FullQueuePolicy.BLOCK)
+                .accessParallelRenderingThreshold(DEFAULT_PARALLEL_RENDERING_THRESHOLD)
+                .accessRateLimit(0)
+                .accessRateLimitPeriod(DEFAULT_RATE_LIMIT_PERIOD)
+                .accessOverflowDigest(false)
+                .accessOverflowDigestInterval(DEFAULT_OVERFLOW_DIGEST_INTERVAL)
+                .accessSink(SinkType.LOGGER)
+                .accessFileSinkDirectory(DEFAULT_FILE_SINK_DIRECTORY)
+                .accessFileSinkSegmentSize(DEFAULT_FILE_SINK_SEGMENT_SIZE)
+                .accessFileSinkRollInterval(DEFAULT_FILE_SINK_ROLL_INTERVAL)
+                .accessFileSinkSyncBatch(DEFAULT_FILE_SINK_SYNC_BATCH)
+                .accessBacklogCap(DEFAULT_BACKLOG_CAP)
+                .accessOffloadExecution(false)
+                .accessOffloadConcurrency(DEFAULT_OFFLOAD_CONCURRENCY)
+                .accessSpool(false)
+                .accessSpoolDirectory(DEFAULT_SPOOL_DIRECTORY)
+                .accessSpoolMaxSize(DEFAULT_SPOOL_MAX_SIZE)
+                .accessClusterBudget(0)
+                .accessClusterBudgetPeriod(DEFAULT_CLUSTER_BUDGET_PERIOD)
+                .accessClusterBudgetLease(DEFAULT_CLUSTER_BUDGET_LEASE)
                 .build();
     }
 
@@ -122,6 +311,28 @@ public abstract class LoggingAlertConfig {
         public abstract Builder accessFieldAlertId(String accessFieldAlertId);
         public abstract Builder accessAlertTag(String accessAlertTag);
         public abstract Builder accessOverflowTag(String accessOverflowTag);
+        public abstract Builder accessAsyncEmission(boolean accessAsyncEmission);
+        public abstract Builder accessAsyncQueueCapacity(int accessAsyncQueueCapacity);
+        public abstract Builder accessAsyncFullQueuePolicy(FullQueuePolicy accessAsyncFullQueuePolicy);
+        public abstract Builder accessParallelRenderingThreshold(int accessParallelRenderingThreshold);
+        public abstract Builder accessRateLimit(int accessRateLimit);
+        public abstract Builder accessRateLimitPeriod(int accessRateLimitPeriod);
+        public abstract Builder accessOverflowDigest(boolean accessOverflowDigest);
+        public abstract Builder accessOverflowDigestInterval(int accessOverflowDigestInterval);
+        public abstract Builder accessSink(SinkType accessSink);
+        public abstract Builder accessFileSinkDirectory(String accessFileSinkDirectory);
+        public abstract Builder accessFileSinkSegmentSize(int accessFileSinkSegmentSize);
+        public abstract Builder accessFileSinkRollInterval(int accessFileSinkRollInterval);
+        public abstract Builder accessFileSinkSyncBatch(int accessFileSinkSyncBatch);
+        public abstract Builder accessBacklogCap(int accessBacklogCap);
+        public abstract Builder accessOffloadExecution(boolean accessOffloadExecution);
+        public abstract Builder accessOffloadConcurrency(int accessOffloadConcurrency);
+        public abstract Builder accessSpool(boolean accessSpool);
+        public abstract Builder accessSpoolDirectory(String accessSpoolDirectory);
+        public abstract Builder accessSpoolMaxSize(int accessSpoolMaxSize);
+        public abstract Builder accessClusterBudget(int accessClusterBudget);
+        public abstract Builder accessClusterBudgetPeriod(int accessClusterBudgetPeriod);
+        public abstract Builder accessClusterBudgetLease(int accessClusterBudgetLease);
 
         public abstract LoggingAlertConfig build();
     }
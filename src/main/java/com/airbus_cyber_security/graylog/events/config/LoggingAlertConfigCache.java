@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.config;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.graylog2.cluster.ClusterConfigChangedEvent;
+import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+
+/**
+ * Keeps a snapshot of the general configuration of the plugin, to avoid reading it from the database for each alert.
+ * The snapshot is replaced whenever the configuration is changed on any node of the cluster
+ * (the ClusterConfigService publishes the changes on the event bus). There is no background refresh: as a fallback,
+ * in case an event is missed, the first call to {@link #get()} after the snapshot becomes older than the refresh
+ * interval reads the configuration again, on the calling thread.
+ */
+@Singleton
+public class LoggingAlertConfigCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingAlertConfigCache.class);
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    private final ClusterConfigService clusterConfigService;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * The general configuration, with accessors for the values read on each alert.
+     */
+    public static final class Snapshot {
+
+        private final LoggingAlertConfig config;
+
+        private final long loadTime;
+
+        private Snapshot(LoggingAlertConfig config, long loadTime) {
+            this.config = config;
+            this.loadTime = loadTime;
+        }
+
+        public LoggingAlertConfig config() {
+            return this.config;
+        }
+
+        public String separator() {
+            return this.config.accessSeparator();
+        }
+
+        public int limitOverflow() {
+            return this.config.accessLimitOverflow();
+        }
+
+        public boolean hasOverflowLimit() {
+            return this.limitOverflow() > 0;
+        }
+
+        public String overflowTag() {
+            return this.config.accessOverflowTag();
+        }
+
+        private boolean isOlderThan(Duration duration, long now) {
+            return now - this.loadTime > duration.toNanos();
+        }
+    }
+
+    @Inject
+    public LoggingAlertConfigCache(ClusterConfigService clusterConfigService, EventBus serverEventBus) {
+        this.clusterConfigService = clusterConfigService;
+        serverEventBus.register(this);
+    }
+
+    public Snapshot get() {
+        Snapshot current = this.snapshot;
+        if (current == null || current.isOlderThan(REFRESH_INTERVAL, System.nanoTime())) {
+            current = this.refresh();
+        }
+        return current;
+    }
+
+    private Snapshot refresh() {
+        LoggingAlertConfig config = this.clusterConfigService.getOrDefault(LoggingAlertConfig.class, LoggingAlertConfig.createDefault());
+        Snapshot current = new Snapshot(config, System.nanoTime());
+        this.snapshot = current;
+        return current;
+    }
+
+    @Subscribe
+    public void handleClusterConfigChanged(ClusterConfigChangedEvent event) {
+        if (!LoggingAlertConfig.class.getCanonicalName().equals(event.type())) {
+            return;
+        }
+        LOGGER.debug("Logging alert configuration changed, reloading it");
+        this.refresh();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.config;
+
+import org.graylog2.plugin.rest.ValidationResult;
+import org.graylog2.plugin.validate.ClusterConfigValidator;
+import org.graylog2.plugin.validate.ConfigValidationException;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Rejects the plugin configurations with invalid settings when they are saved through the REST API.
+ */
+public class LoggingAlertConfigValidator implements ClusterConfigValidator {
+
+    @Override
+    public void validate(Object configuration) throws ConfigValidationException {
+        if (!(configuration instanceof LoggingAlertConfig config)) {
+            return;
+        }
+        ValidationResult validation = config.validate();
+        if (validation.failed()) {
+            throw new ConfigValidationException(validation.getErrors().values().stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+}
@@ -16,17 +16,21 @@
  */
 package com.airbus_cyber_security.graylog.events.contentpack.entities;
 
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogProtocol;
 import com.airbus_cyber_security.graylog.events.notifications.types.LoggingNotificationConfig;
+import com.airbus_cyber_security.graylog.events.notifications.types.OutputFormat;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import org.graylog.events.contentpack.entities.EventNotificationConfigEntity;
 import org.graylog.events.notifications.EventNotificationConfig;
 import org.graylog2.contentpacks.model.entities.EntityDescriptor;
 import org.graylog2.contentpacks.model.entities.references.ValueReference;
 
+import java.util.List;
 import java.util.Map;
 
 @AutoValue
@@ -39,6 +43,15 @@ public abstract class LoggingNotificationConfigEntity implements EventNotificati
     private static final String FIELD_LOG_BODY = "log_body";
     private static final String FIELD_ALERT_TAG = "alert_tag";
     private static final String FIELD_SINGLE_MESSAGE = "single_notification";
+    private static final String FIELD_DEDUP_WINDOW = "dedup_window";
+    private static final String FIELD_DEDUP_FIELDS = "dedup_fields";
+    private static final String FIELD_OUTPUT_FORMAT = "output_format";
+    private static final String FIELD_JSON_FIELDS = "json_fields";
+    private static final String FIELD_SYSLOG_HOST = "syslog_host";
+    private static final String FIELD_SYSLOG_PORT = "syslog_port";
+    private static final String FIELD_SYSLOG_PROTOCOL = "syslog_protocol";
+    private static final String FIELD_COALESCE_WINDOW = "coalesce_window";
+    private static final String FIELD_COALESCE_MAX_EVENTS = "coalesce_max_events";
     
     @JsonProperty(FIELD_LOG_BODY)
     public abstract ValueReference logBody();
@@ -48,6 +61,33 @@ public abstract class LoggingNotificationConfigEntity implements EventNotificati
 
     @JsonProperty(FIELD_SINGLE_MESSAGE)
     public abstract boolean singleMessage();
+
+    @JsonProperty(FIELD_DEDUP_WINDOW)
+    public abstract int dedupWindow();
+
+    @JsonProperty(FIELD_DEDUP_FIELDS)
+    public abstract ImmutableList<String> dedupFields();
+
+    @JsonProperty(FIELD_OUTPUT_FORMAT)
+    public abstract OutputFormat outputFormat();
+
+    @JsonProperty(FIELD_JSON_FIELDS)
+    public abstract ImmutableList<String> jsonFields();
+
+    @JsonProperty(FIELD_SYSLOG_HOST)
+    public abstract ValueReference syslogHost();
+
+    @JsonProperty(FIELD_SYSLOG_PORT)
+    public abstract int syslogPort();
+
+    @JsonProperty(FIELD_SYSLOG_PROTOCOL)
+    public abstract SyslogProtocol syslogProtocol();
+
+    @JsonProperty(FIELD_COALESCE_WINDOW)
+    public abstract int coalesceWindow();
+
+    @JsonProperty(FIELD_COALESCE_MAX_EVENTS)
+    public abstract int coalesceMaxEvents();
     
     public static Builder builder() {
         return Builder.create();
@@ -60,7 +100,16 @@ public abstract class LoggingNotificationConfigEntity implements EventNotificati
     	@JsonCreator
         public static Builder create() {
             return new AutoValue_LoggingNotificationConfigEntity.Builder()
-                    .type(TYPE_NAME);
+                    .type(TYPE_NAME)
+                    .dedupWindow(0)
+                    .dedupFields(List.of())
+                    .outputFormat(OutputFormat.TEMPLATE)
+                    .jsonFields(List.of())
+                    .syslogHost(ValueReference.of(""))
+                    .syslogPort(514)
+                    .syslogProtocol(SyslogProtocol.TCP)
+                    .coalesceWindow(0)
+                    .coalesceMaxEvents(100);
         }
 
         @JsonProperty(FIELD_LOG_BODY)
@@ -69,6 +118,24 @@ public abstract class LoggingNotificationConfigEntity implements EventNotificati
         public abstract Builder alertTag(ValueReference alertTag);
         @JsonProperty(FIELD_SINGLE_MESSAGE)
         public abstract Builder singleMessage(boolean singleMessage);
+        @JsonProperty(FIELD_DEDUP_WINDOW)
+        public abstract Builder dedupWindow(int dedupWindow);
+        @JsonProperty(FIELD_DEDUP_FIELDS)
+        public abstract Builder dedupFields(List<String> dedupFields);
+        @JsonProperty(FIELD_OUTPUT_FORMAT)
+        public abstract Builder outputFormat(OutputFormat outputFormat);
+        @JsonProperty(FIELD_JSON_FIELDS)
+        public abstract Builder jsonFields(List<String> jsonFields);
+        @JsonProperty(FIELD_SYSLOG_HOST)
+        public abstract Builder syslogHost(ValueReference syslogHost);
+        @JsonProperty(FIELD_SYSLOG_PORT)
+        public abstract Builder syslogPort(int syslogPort);
+        @JsonProperty(FIELD_SYSLOG_PROTOCOL)
+        public abstract Builder syslogProtocol(SyslogProtocol syslogProtocol);
+        @JsonProperty(FIELD_COALESCE_WINDOW)
+        public abstract Builder coalesceWindow(int coalesceWindow);
+        @JsonProperty(FIELD_COALESCE_MAX_EVENTS)
+        public abstract Builder coalesceMaxEvents(int coalesceMaxEvents);
         
         public abstract LoggingNotificationConfigEntity build();
     }
@@ -80,6 +147,15 @@ public abstract class LoggingNotificationConfigEntity implements EventNotificati
 				.logBody(logBody().asString(parameters))
 				.alertTag(alertTag().asString(parameters))
                 .singleMessage(singleMessage())
+                .dedupWindow(dedupWindow())
+                .dedupFields(dedupFields())
+                .outputFormat(outputFormat())
+                .jsonFields(jsonFields())
+                .syslogHost(syslogHost().asString(parameters))
+                .syslogPort(syslogPort())
+                .syslogProtocol(syslogProtocol())
+                .coalesceWindow(coalesceWindow())
+                .coalesceMaxEvents(coalesceMaxEvents())
 				.build();
 	}
 }
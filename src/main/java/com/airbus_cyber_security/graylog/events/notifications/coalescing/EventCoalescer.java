@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.coalescing;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the events of a notification which share the same event definition, so that bursts of events are handled
+ * as a single batch. A batch is handled once its window elapsed, or as soon as it holds the maximum number of events.
+ * A dedicated thread only runs the window timers, batches are handled by a bounded pool of worker threads,
+ * so that the notification jobs return as soon as their event is buffered. When the pool is saturated or stopped,
+ * the batch is handled by the thread which closed it.
+ */
+@Singleton
+public class EventCoalescer extends AbstractIdleService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventCoalescer.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final int WORKER_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final int WORKER_QUEUE_CAPACITY = 1024;
+
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+    private final Map<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+
+    private volatile ScheduledThreadPoolExecutor scheduler;
+
+    private volatile ExecutorService workers;
+
+    private record BatchKey(String notificationId, String eventDefinitionId) {}
+
+    public interface BatchHandler {
+        void execute(List<EventNotificationContext> contexts) throws EventNotificationException;
+    }
+
+    private static final class Batch {
+
+        private final BatchKey key;
+
+        private final BatchHandler handler;
+
+        private final List<EventNotificationContext> contexts = new ArrayList<>();
+
+        private boolean closed;
+
+        private ScheduledFuture<?> timer;
+
+        Batch(BatchKey key, BatchHandler handler) {
+            this.key = key;
+            this.handler = handler;
+        }
+    }
+
+    public int size() {
+        return this.batches.size();
+    }
+
+    /**
+     * Buffers the event in the batch of its notification and event definition, the batch opens with its first event.
+     * @param windowMillis duration after which the batch opened by the first event is handled
+     * @param maxEvents number of events from which the batch is handled without waiting for the end of the window
+     * @return false when the coalescer is not running, the caller should then handle the event itself
+     */
+    public boolean add(EventNotificationContext context, int windowMillis, int maxEvents, BatchHandler handler) {
+        ScheduledExecutorService currentScheduler = this.scheduler;
+        if (currentScheduler == null || !this.isRunning()) {
+            return false;
+        }
+        BatchKey key = new BatchKey(context.notificationId(), context.event().eventDefinitionId());
+        while (true) {
+            boolean timerStarted = true;
+            Batch batch = this.batches.get(key);
+            if (batch == null) {
+                Batch created = new Batch(key, handler);
+                batch = this.batches.putIfAbsent(key, created);
+                if (batch == null) {
+                    batch = created;
+                    timerStarted = this.startTimer(currentScheduler, created, windowMillis);
+                }
+            }
+            boolean handleNow;
+            synchronized (batch) {
+                if (batch.closed) {
+                    continue;
+                }
+                batch.contexts.add(context);
+                // Note: without a timer (the coalescer is stopping), nothing would ever handle the batch
+                handleNow = !timerStarted || batch.contexts.size() >= maxEvents;
+                if (handleNow) {
+                    this.close(batch);
+                }
+            }
+            if (handleNow) {
+                this.dispatch(batch);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return false when the scheduler is stopping
+     */
+    private boolean startTimer(ScheduledExecutorService currentScheduler, Batch batch, int windowMillis) {
+        ScheduledFuture<?> timer;
+        try {
+            timer = currentScheduler.schedule(() -> this.closeAndDispatch(batch), windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        synchronized (batch) {
+            if (batch.closed) {
+                timer.cancel(false);
+            } else {
+                batch.timer = timer;
+            }
+        }
+        return true;
+    }
+
+    private void close(Batch batch) {
+        batch.closed = true;
+        if (batch.timer != null) {
+            batch.timer.cancel(false);
+        }
+        this.batches.remove(batch.key, batch);
+    }
+
+    private void closeAndDispatch(Batch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            this.close(batch);
+        }
+        this.dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        ExecutorService currentWorkers = this.workers;
+        try {
+            currentWorkers.execute(() -> this.handle(batch));
+        } catch (RejectedExecutionException e) {
+            // Note: the pool is saturated or stopped
+            this.handle(batch);
+        }
+    }
+
+    private void handle(Batch batch) {
+        try {
+            batch.handler.execute(batch.contexts);
+        } catch (EventNotificationException | RuntimeException e) {
+            LOGGER.error("Could not execute the batch of {} events of notification {}", batch.contexts.size(), batch.key.notificationId(), e);
+        }
+    }
+
+    @Override
+    protected void startUp() {
+        ThreadPoolExecutor workerPool = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(WORKER_QUEUE_CAPACITY), new ThreadFactoryBuilder()
+                .setNameFormat("logging-alert-coalescer-worker-%d")
+                .setDaemon(true)
+                .build());
+        workerPool.allowCoreThreadTimeOut(true);
+        this.workers = workerPool;
+        ScheduledThreadPoolExecutor timerScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("logging-alert-coalescer-%d")
+                .setDaemon(true)
+                .build());
+        timerScheduler.setRemoveOnCancelPolicy(true);
+        timerScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = timerScheduler;
+    }
+
+    /**
+     * Stops the timers, handles the batches still open, then waits for the batches being handled.
+     */
+    @Override
+    protected void shutDown() throws InterruptedException {
+        this.scheduler.shutdown();
+        for (Batch batch: List.copyOf(this.batches.values())) {
+            this.closeAndDispatch(batch);
+        }
+        this.workers.shutdown();
+        if (!this.scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                || !this.workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            LOGGER.warn("Batches of events still running after {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-event-coalescer";
+    }
+}
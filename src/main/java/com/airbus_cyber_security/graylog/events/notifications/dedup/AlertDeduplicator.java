@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.dedup;
+
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogDestination;
+import com.airbus_cyber_security.graylog.events.notifications.types.OutputFormat;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import org.joda.time.DateTime;
+
+import jakarta.annotation.Nullable;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suppresses the logs repeating a log already emitted by the same notification within a window.
+ * Logs are identified by a fingerprint (see {@link AlertFingerprint}). The number of windows kept is bounded,
+ * so that memory stays fixed even when many distinct logs are emitted: the least recently used windows are closed early.
+ */
+@Singleton
+public class AlertDeduplicator {
+
+    private static final int MAXIMUM_WINDOWS = 10000;
+
+    private final Cache<String, Window> windows;
+
+    // windows closed early, with repeats to report
+    private final Queue<Window> evictedWindows = new ConcurrentLinkedQueue<>();
+
+    public static final class Window {
+
+        private final String key;
+
+        private final DateTime openedAt;
+
+        private final DateTime closesAt;
+
+        private final AtomicLong repeatCount = new AtomicLong();
+
+        private volatile String tag;
+
+        private volatile String message;
+
+        private volatile SyslogDestination syslogDestination;
+
+        private volatile OutputFormat outputFormat;
+
+        Window(String key, DateTime openedAt, DateTime closesAt) {
+            this.key = key;
+            this.openedAt = openedAt;
+            this.closesAt = closesAt;
+        }
+
+        public long repeatCount() {
+            return this.repeatCount.get();
+        }
+
+        @Nullable
+        public SyslogDestination syslogDestination() {
+            return this.syslogDestination;
+        }
+
+        public OutputFormat outputFormat() {
+            return this.outputFormat;
+        }
+
+        public String tag() {
+            return this.tag;
+        }
+
+        public String message() {
+            return this.message;
+        }
+
+        boolean hasRepeats() {
+            return this.repeatCount.get() > 0;
+        }
+    }
+
+    public AlertDeduplicator() {
+        this.windows = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_WINDOWS)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * The returned window only suppresses the next logs once it is registered (see {@link #register}).
+     * @return the window to register for this log, null when it repeats a log emitted within its window
+     */
+    @Nullable
+    public Window open(String notificationId, String fingerprint, int windowInSeconds, DateTime now) {
+        String key = notificationId + ":" + fingerprint;
+        boolean[] repeated = new boolean[1];
+        this.windows.asMap().computeIfPresent(key, (k, current) -> {
+            if (current.closesAt.isAfter(now)) {
+                current.repeatCount.incrementAndGet();
+                repeated[0] = true;
+            }
+            return current;
+        });
+        if (repeated[0]) {
+            return null;
+        }
+        return new Window(key, now, now.plusSeconds(windowInSeconds));
+    }
+
+    /**
+     * Registers the window once its log was emitted, the log is emitted again with the repeat count when the window closes.
+     * Note: windows of logs which failed to be emitted, or went to the overflow digest, are never registered,
+     * so that the logs are not suppressed when the notification is retried.
+     */
+    public void register(Window window, @Nullable SyslogDestination syslogDestination, OutputFormat outputFormat, String tag, String message) {
+        window.syslogDestination = syslogDestination;
+        window.outputFormat = outputFormat;
+        window.tag = tag;
+        window.message = message;
+        this.windows.asMap().compute(window.key, (key, current) -> {
+            if (current != null && current.closesAt.isAfter(window.openedAt)) {
+                return current;
+            }
+            if (current != null && current.hasRepeats()) {
+                this.evictedWindows.add(current);
+            }
+            return window;
+        });
+    }
+
+    /**
+     * Removes the windows closed at the given time.
+     * @return the closed windows which suppressed at least one log
+     */
+    public List<Window> close(DateTime now) {
+        List<Window> result = new ArrayList<>();
+        for (Map.Entry<String, Window> entry: this.windows.asMap().entrySet()) {
+            Window window = entry.getValue();
+            if (!window.closesAt.isAfter(now) && this.windows.asMap().remove(entry.getKey(), window) && window.hasRepeats()) {
+                result.add(window);
+            }
+        }
+        Window window = this.evictedWindows.poll();
+        while (window != null) {
+            result.add(window);
+            window = this.evictedWindows.poll();
+        }
+        return result;
+    }
+
+    public long size() {
+        return this.windows.size();
+    }
+
+    private void onRemoval(RemovalNotification<String, Window> notification) {
+        Window window = notification.getValue();
+        if (notification.getCause() == RemovalCause.SIZE && window != null && window.hasRepeats()) {
+            this.evictedWindows.add(window);
+        }
+    }
+}
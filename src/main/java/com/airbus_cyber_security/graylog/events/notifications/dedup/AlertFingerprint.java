@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.dedup;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.graylog2.plugin.MessageSummary;
+
+import jakarta.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Identifies a log for the deduplication, either by its whole content or by a subset of fields.
+ * The whole content is taken without the values specific to each event (such as logging_alert.id), which would
+ * otherwise prevent any two logs of distinct events from ever matching.
+ */
+public final class AlertFingerprint {
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('.');
+
+    private AlertFingerprint() {
+    }
+
+    /**
+     * Each field is a path in the template model (for instance logging_alert.severity or event.fields.aggregation_id).
+     * When it is not found in the model, it is looked up in the fields of the backlog message.
+     *
+     * @param fields the fields to compute the fingerprint from, the whole log when empty
+     * @param messageToLog only rendered when there are no fields
+     * @param eventValues values specific to the event, removed from the whole log
+     */
+    public static String of(List<String> fields, Map<String, Object> eventModel, @Nullable MessageSummary message,
+                            Supplier<String> messageToLog, List<String> eventValues) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        if (fields.isEmpty()) {
+            String content = messageToLog.get();
+            for (String value: eventValues) {
+                if (value != null && !value.isEmpty()) {
+                    content = content.replace(value, "");
+                }
+            }
+            hasher.putString(content, StandardCharsets.UTF_8);
+            return hasher.hash().toString();
+        }
+        for (String field: fields) {
+            Object value = resolve(eventModel, field);
+            if (value == null && message != null) {
+                value = message.getField(field);
+            }
+            hasher.putString(field, StandardCharsets.UTF_8)
+                    .putByte((byte) 0)
+                    .putString(String.valueOf(value), StandardCharsets.UTF_8)
+                    .putByte((byte) 0);
+        }
+        return hasher.hash().toString();
+    }
+
+    @Nullable
+    private static Object resolve(Map<String, Object> model, String path) {
+        Object current = model;
+        for (String segment: PATH_SPLITTER.split(path)) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.dedup;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.types.JsonLogEncoder;
+import com.airbus_cyber_security.graylog.events.notifications.types.OutputFormat;
+import org.graylog.events.notifications.TemporaryEventNotificationException;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.periodical.Periodical;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+
+/**
+ * Closes the deduplication windows and logs again, with the repeat count, the logs which were suppressed.
+ * The repeat count of a JSON log is written as one more field of its object.
+ */
+public class RepeatedAlertPeriodical extends Periodical {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepeatedAlertPeriodical.class);
+
+    private static final String REPEAT_COUNT = "repeat_count";
+
+    private final AlertDeduplicator deduplicator;
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final AlertEmitter alertEmitter;
+
+    private final JsonLogEncoder jsonEncoder;
+
+    @Inject
+    public RepeatedAlertPeriodical(AlertDeduplicator deduplicator, LoggingAlertConfigCache configCache, AlertEmitter alertEmitter,
+                                   JsonLogEncoder jsonEncoder) {
+        this.deduplicator = deduplicator;
+        this.configCache = configCache;
+        this.alertEmitter = alertEmitter;
+        this.jsonEncoder = jsonEncoder;
+    }
+
+    @Override
+    public void doRun() {
+        if (this.deduplicator.size() == 0) {
+            return;
+        }
+        LoggingAlertConfigCache.Snapshot generalConfig = this.configCache.get();
+        for (AlertDeduplicator.Window window: this.deduplicator.close(Tools.nowUTC())) {
+            String message;
+            if (window.outputFormat() == OutputFormat.JSON) {
+                message = this.jsonEncoder.appendField(window.message(), REPEAT_COUNT, window.repeatCount());
+            } else {
+                message = window.message() + generalConfig.separator() + REPEAT_COUNT + ": " + window.repeatCount();
+            }
+            try {
+                this.alertEmitter.emit(generalConfig, window.syslogDestination(), window.tag(), message);
+            } catch (TemporaryEventNotificationException e) {
+                LOGGER.error("Could not emit repeated log", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return true;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return 1;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return 1;
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+}
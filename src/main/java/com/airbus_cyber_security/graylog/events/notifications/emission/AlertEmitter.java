@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.spool.AlertSpool;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogAlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogDestination;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.graylog.events.notifications.TemporaryEventNotificationException;
+
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Emits the generated logs, either directly from the calling thread or through the {@link AsyncAlertEmitter}
+ * when the asynchronous emission is enabled in the plugin configuration.
+ * Logs of notifications configured with a syslog receiver are sent with the {@link SyslogAlertSink}.
+ * When the spool is enabled, logs are journaled in the {@link AlertSpool} which emits them, unless it is full.
+ */
+@Singleton
+public class AlertEmitter {
+
+    private final AlertSink sink;
+
+    private final AsyncAlertEmitter asyncEmitter;
+
+    private final SyslogAlertSink syslogSink;
+
+    private final AlertSpool spool;
+
+    private final Counter droppedToOverflow;
+
+    @Inject
+    public AlertEmitter(AlertSink sink, AsyncAlertEmitter asyncEmitter, SyslogAlertSink syslogSink, AlertSpool spool,
+                        MetricRegistry metricRegistry) {
+        this.sink = sink;
+        this.asyncEmitter = asyncEmitter;
+        this.syslogSink = syslogSink;
+        this.spool = spool;
+        this.droppedToOverflow = metricRegistry.counter(name(AlertEmitter.class, "dropped-to-overflow"));
+    }
+
+    public void emit(LoggingAlertConfigCache.Snapshot generalConfig, String tag, String message) throws TemporaryEventNotificationException {
+        this.emit(generalConfig, null, tag, message);
+    }
+
+    public void emit(LoggingAlertConfigCache.Snapshot generalConfig, @Nullable SyslogDestination syslogDestination,
+                     String tag, String message) throws TemporaryEventNotificationException {
+        if (syslogDestination != null) {
+            this.syslogSink.emit(syslogDestination, tag, message);
+            return;
+        }
+        LoggingAlertConfig config = generalConfig.config();
+        if (config.accessSpool() && this.spool.append(tag, message)) {
+            return;
+        }
+        if (!config.accessAsyncEmission() || !this.asyncEmitter.isRunning()) {
+            this.sink.emit(tag, message);
+            return;
+        }
+        if (this.asyncEmitter.offer(tag, message)) {
+            return;
+        }
+        switch (config.accessAsyncFullQueuePolicy()) {
+            case BLOCK -> {
+                if (!this.asyncEmitter.put(tag, message)) {
+                    this.sink.emit(tag, message);
+                }
+            }
+            case DROP_TO_OVERFLOW -> {
+                this.droppedToOverflow.inc();
+                this.sink.emit(config.accessOverflowTag(), message);
+            }
+            case FAIL -> throw new TemporaryEventNotificationException("Asynchronous emission queue is full ("
+                    + this.asyncEmitter.queueDepth() + " pending logs)");
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Emits the logs from a dedicated thread, so that a slow appender does not hold the job scheduler threads.
+ * Logs are handed over through a bounded lock-free ring buffer. It is allocated when the first log is queued, with the
+ * capacity read from the plugin configuration at that time. The thread is parked while there is nothing to emit.
+ */
+@Singleton
+public class AsyncAlertEmitter extends AbstractExecutionThreadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncAlertEmitter.class);
+
+    private static final long FULL_QUEUE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final AlertSink sink;
+
+    private final Timer drainLatency;
+
+    private final Object bufferLock = new Object();
+
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    private volatile RingBuffer<PendingAlert> buffer;
+
+    private volatile boolean closed;
+
+    private volatile Thread consumer;
+
+    private volatile boolean consumerParked;
+
+    private record PendingAlert(String tag, String message, long enqueueTime) {}
+
+    @Inject
+    public AsyncAlertEmitter(LoggingAlertConfigCache configCache, AlertSink sink, MetricRegistry metricRegistry) {
+        this.configCache = configCache;
+        this.sink = sink;
+        this.drainLatency = metricRegistry.timer(name(AsyncAlertEmitter.class, "drain-latency"));
+        metricRegistry.gauge(name(AsyncAlertEmitter.class, "queue-depth"), () -> (Gauge<Integer>) this::queueDepth);
+    }
+
+    public int queueDepth() {
+        RingBuffer<PendingAlert> current = this.buffer;
+        if (current == null) {
+            return 0;
+        }
+        return current.size();
+    }
+
+    /**
+     * Queues the log without waiting.
+     * @return false when the queue is full or the emitter is not running
+     */
+    public boolean offer(String tag, String message) {
+        // Note: the count of active producers lets shutDown wait for the offers in progress before the final drain
+        this.activeProducers.incrementAndGet();
+        try {
+            if (this.closed || !this.isRunning()) {
+                return false;
+            }
+            if (!this.buffer().offer(new PendingAlert(tag, message, System.nanoTime()))) {
+                return false;
+            }
+        } finally {
+            this.activeProducers.decrementAndGet();
+        }
+        if (this.consumerParked) {
+            LockSupport.unpark(this.consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until there is room in the queue.
+     * @return false when the emitter stopped while waiting
+     */
+    public boolean put(String tag, String message) {
+        while (!this.offer(tag, message)) {
+            if (this.closed || !this.isRunning()) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_QUEUE_WAIT_NANOS);
+        }
+        return true;
+    }
+
+    private RingBuffer<PendingAlert> buffer() {
+        RingBuffer<PendingAlert> current = this.buffer;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this.bufferLock) {
+            if (this.buffer == null) {
+                int capacity = this.configCache.get().config().accessAsyncQueueCapacity();
+                this.buffer = new RingBuffer<>(capacity);
+                LOGGER.debug("Asynchronous emission queue allocated with a capacity of {}", this.buffer.capacity());
+            }
+            return this.buffer;
+        }
+    }
+
+    @Override
+    protected void run() {
+        this.consumer = Thread.currentThread();
+        while (this.isRunning()) {
+            if (this.drain() == 0) {
+                this.awaitLogs();
+            }
+        }
+    }
+
+    private void awaitLogs() {
+        this.consumerParked = true;
+        // Note: checked again after publishing consumerParked, so that a log offered meanwhile is not left waiting
+        RingBuffer<PendingAlert> current = this.buffer;
+        if ((current == null || current.isEmpty()) && this.isRunning()) {
+            LockSupport.park(this);
+        }
+        this.consumerParked = false;
+    }
+
+    @Override
+    protected void triggerShutdown() {
+        Thread current = this.consumer;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    protected void shutDown() {
+        this.closed = true;
+        while (this.activeProducers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        int count = this.drain();
+        LOGGER.debug("Asynchronous emission queue stopped, {} remaining logs emitted", count);
+    }
+
+    private int drain() {
+        RingBuffer<PendingAlert> current = this.buffer;
+        if (current == null) {
+            return 0;
+        }
+        int count = 0;
+        PendingAlert alert = current.poll();
+        while (alert != null) {
+            try {
+                this.sink.emit(alert.tag(), alert.message());
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not emit log with tag {}", alert.tag(), e);
+            }
+            this.drainLatency.update(System.nanoTime() - alert.enqueueTime(), TimeUnit.NANOSECONDS);
+            count++;
+            alert = current.poll();
+        }
+        return count;
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-async-emitter";
+    }
+}
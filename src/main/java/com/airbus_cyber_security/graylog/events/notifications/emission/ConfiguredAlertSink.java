@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.config.SinkType;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Emits the logs to the sink selected in the plugin configuration.
+ */
+@Singleton
+public class ConfiguredAlertSink implements AlertSink {
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final LoggerAlertSink loggerSink;
+
+    private final MappedFileAlertSink fileSink;
+
+    @Inject
+    public ConfiguredAlertSink(LoggingAlertConfigCache configCache, LoggerAlertSink loggerSink, MappedFileAlertSink fileSink) {
+        this.configCache = configCache;
+        this.loggerSink = loggerSink;
+        this.fileSink = fileSink;
+    }
+
+    @Override
+    public void emit(String tag, String message) {
+        if (this.configCache.get().config().accessSink() == SinkType.MAPPED_FILE) {
+            this.fileSink.emit(tag, message);
+        } else {
+            this.loggerSink.emit(tag, message);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs with a logger named after the tag, so that the logs go through the log4j configuration of Graylog.
+ * Loggers are looked up once per tag, concurrent notifications then only read the cache.
+ */
+@Singleton
+public class LoggerAlertSink implements AlertSink {
+
+    private final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    @Override
+    public void emit(String tag, String message) {
+        Logger logger = this.loggers.get(tag);
+        if (logger == null) {
+            logger = this.loggers.computeIfAbsent(tag, LoggerFactory::getLogger);
+        }
+        logger.info(message);
+    }
+}
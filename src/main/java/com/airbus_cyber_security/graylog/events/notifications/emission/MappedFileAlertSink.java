@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.google.common.util.concurrent.AbstractIdleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Appends the logs as lines (tag, a space, then the log) to memory-mapped segment files, so that a local shipper can tail them.
+ * A new segment is started when the current one is full, older than the roll interval, or when the settings change.
+ * Segments are forced to the storage device every sync batch of logs and when they are closed.
+ * Logs which cannot be written are emitted with the {@link LoggerAlertSink} instead.
+ * Each thread encodes its lines in its own buffer, so that concurrent notifications only hold the lock
+ * to copy the line into the segment. Virtual threads, which are not reused, borrow their buffer from a pool instead.
+ * Note: the lock is a {@link ReentrantLock} rather than a monitor, so that virtual threads waiting for it do not pin their carrier thread.
+ */
+@Singleton
+public class MappedFileAlertSink extends AbstractIdleService implements AlertSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileAlertSink.class);
+
+    private static final String SEGMENT_PREFIX = "alerts-";
+
+    private static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final int INITIAL_LINE_CAPACITY = 1024;
+
+    private static final int MAXIMUM_KEPT_LINE_CAPACITY = 64 * 1024;
+
+    private static final int MAXIMUM_POOLED_ENCODERS = 64;
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final LoggerAlertSink fallbackSink;
+
+    private final LongSupplier clock;
+
+    private final ThreadLocal<LineEncoder> lineEncoders = ThreadLocal.withInitial(LineEncoder::new);
+
+    private final BlockingQueue<LineEncoder> pooledEncoders = new ArrayBlockingQueue<>(MAXIMUM_POOLED_ENCODERS);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private LoggingAlertConfig latestConfig;
+
+    private Settings latestSettings;
+
+    private Settings settings;
+
+    private MappedSegment segment;
+
+    private int unsyncedCount;
+
+    private long sequence;
+
+    record Settings(Path directory, int segmentSize, long rollIntervalMillis, int syncBatch) {
+
+        static Settings of(LoggingAlertConfig config) {
+            int segmentSize = (int) Math.min((long) config.accessFileSinkSegmentSize() * BYTES_PER_MEGABYTE, Integer.MAX_VALUE);
+            return new Settings(Paths.get(config.accessFileSinkDirectory()), Math.max(segmentSize, 1),
+                    TimeUnit.SECONDS.toMillis(config.accessFileSinkRollInterval()), config.accessFileSinkSyncBatch());
+        }
+    }
+
+    @Inject
+    public MappedFileAlertSink(LoggingAlertConfigCache configCache, LoggerAlertSink fallbackSink) {
+        this(configCache, fallbackSink, System::currentTimeMillis);
+    }
+
+    MappedFileAlertSink(LoggingAlertConfigCache configCache, LoggerAlertSink fallbackSink, LongSupplier clock) {
+        this.configCache = configCache;
+        this.fallbackSink = fallbackSink;
+        this.clock = clock;
+    }
+
+    /**
+     * Encodes the lines as UTF-8, with the line breaks of the log escaped so that each log stays on a single line.
+     */
+    private static final class LineEncoder {
+
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private StringBuilder text = new StringBuilder(INITIAL_LINE_CAPACITY);
+
+        private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_LINE_CAPACITY);
+
+        ByteBuffer encode(String tag, String message) {
+            if (this.text.capacity() > MAXIMUM_KEPT_LINE_CAPACITY) {
+                this.text = new StringBuilder(INITIAL_LINE_CAPACITY);
+            }
+            this.text.setLength(0);
+            this.text.append(tag).append(' ');
+            for (int i = 0; i < message.length(); i++) {
+                char character = message.charAt(i);
+                if (character == '\n') {
+                    this.text.append("\\n");
+                } else {
+                    this.text.append(character);
+                }
+            }
+            this.text.append('\n');
+
+            int maximumLength = (int) Math.ceil(this.text.length() * (double) this.encoder.maxBytesPerChar());
+            if (this.bytes.capacity() < maximumLength || this.bytes.capacity() > MAXIMUM_KEPT_LINE_CAPACITY) {
+                this.bytes = ByteBuffer.allocate(Math.max(maximumLength, INITIAL_LINE_CAPACITY));
+            }
+            this.bytes.clear();
+            this.encoder.reset();
+            this.encoder.encode(CharBuffer.wrap(this.text), this.bytes, true);
+            this.encoder.flush(this.bytes);
+            return this.bytes.flip();
+        }
+    }
+
+    @Override
+    public void emit(String tag, String message) {
+        boolean virtual = Thread.currentThread().isVirtual();
+        LineEncoder encoder = virtual ? this.borrowEncoder() : this.lineEncoders.get();
+        boolean written;
+        try {
+            ByteBuffer line = encoder.encode(tag, message);
+            LoggingAlertConfig config = this.configCache.get().config();
+            this.lock.lock();
+            try {
+                written = this.tryWrite(config, line);
+            } finally {
+                this.lock.unlock();
+            }
+        } finally {
+            if (virtual) {
+                this.pooledEncoders.offer(encoder);
+            }
+        }
+        if (!written) {
+            this.fallbackSink.emit(tag, message);
+        }
+    }
+
+    private LineEncoder borrowEncoder() {
+        LineEncoder encoder = this.pooledEncoders.poll();
+        if (encoder == null) {
+            return new LineEncoder();
+        }
+        return encoder;
+    }
+
+    private boolean tryWrite(LoggingAlertConfig config, ByteBuffer line) {
+        try {
+            this.write(config, line);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Could not write log to segment file, emitting it with the logger", e);
+            this.abandonSegment();
+            return false;
+        }
+    }
+
+    private void abandonSegment() {
+        if (this.segment == null) {
+            return;
+        }
+        Path path = this.segment.path();
+        try {
+            this.closeSegment();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not close segment file {}, it will be cut back to its tail marker on the next start", path, e);
+        }
+    }
+
+    private void write(LoggingAlertConfig config, ByteBuffer line) throws IOException {
+        Settings currentSettings = this.getSettings(config);
+        int lineLength = line.remaining();
+        long now = this.clock.getAsLong();
+        if (this.segment != null && (!currentSettings.equals(this.settings) || this.isExpired(now))) {
+            this.closeSegment();
+        }
+        if (this.segment == null) {
+            this.openSegment(currentSettings, lineLength, now);
+        }
+        if (!this.segment.append(line)) {
+            this.closeSegment();
+            this.openSegment(currentSettings, lineLength, now);
+            this.segment.append(line);
+        }
+        this.unsyncedCount++;
+        if (this.settings.syncBatch() > 0 && this.unsyncedCount >= this.settings.syncBatch()) {
+            this.segment.sync();
+            this.unsyncedCount = 0;
+        }
+    }
+
+    // Note: the settings are only computed again when the plugin configuration changed
+    private Settings getSettings(LoggingAlertConfig config) {
+        if (config != this.latestConfig) {
+            this.latestSettings = Settings.of(config);
+            this.latestConfig = config;
+        }
+        return this.latestSettings;
+    }
+
+    private boolean isExpired(long now) {
+        long rollInterval = this.settings.rollIntervalMillis();
+        return rollInterval > 0 && now - this.segment.openedAt() >= rollInterval;
+    }
+
+    private void openSegment(Settings settings, int lineLength, long now) throws IOException {
+        if (!settings.equals(this.settings)) {
+            Files.createDirectories(settings.directory());
+            MappedSegment.recover(settings.directory());
+            this.settings = settings;
+        }
+        Path path = settings.directory().resolve(SEGMENT_PREFIX + now + "-" + this.sequence + MappedSegment.SEGMENT_EXTENSION);
+        this.sequence++;
+        this.segment = MappedSegment.open(path, Math.max(settings.segmentSize(), lineLength), now);
+        LOGGER.debug("Opened segment file {}", path);
+    }
+
+    private void closeSegment() throws IOException {
+        MappedSegment current = this.segment;
+        this.segment = null;
+        this.unsyncedCount = 0;
+        current.close();
+        LOGGER.debug("Closed segment file {} with {} bytes", current.path(), current.position());
+    }
+
+    @Override
+    protected void startUp() {
+    }
+
+    @Override
+    protected void shutDown() throws IOException {
+        this.lock.lock();
+        try {
+            if (this.segment != null) {
+                this.closeSegment();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-mapped-file-sink";
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A segment file, mapped in memory with a fixed capacity and filled with log lines.
+ * The length of the lines forced to the storage device is kept in a tail marker file next to the segment, so that
+ * a shipper tailing the segment knows where the durable content ends, and so that a segment left open by a crash
+ * can be cut back to it. When the segment is closed, it is truncated to its content and its tail marker removed.
+ */
+final class MappedSegment {
+
+    static final String SEGMENT_EXTENSION = ".log";
+
+    static final String TAIL_EXTENSION = ".tail";
+
+    private static final int TAIL_SIZE = Long.BYTES;
+
+    private final Path path;
+
+    private final Path tailPath;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer content;
+
+    private final FileChannel tailChannel;
+
+    private final MappedByteBuffer tail;
+
+    private final long openedAt;
+
+    private MappedSegment(Path path, Path tailPath, FileChannel channel, MappedByteBuffer content,
+                          FileChannel tailChannel, MappedByteBuffer tail, long openedAt) {
+        this.path = path;
+        this.tailPath = tailPath;
+        this.channel = channel;
+        this.content = content;
+        this.tailChannel = tailChannel;
+        this.tail = tail;
+        this.openedAt = openedAt;
+    }
+
+    static Path tailPathOf(Path segmentPath) {
+        String fileName = segmentPath.getFileName().toString();
+        String baseName = fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length());
+        return segmentPath.resolveSibling(baseName + TAIL_EXTENSION);
+    }
+
+    static MappedSegment open(Path path, int capacity, long openedAt) throws IOException {
+        // Note: the tail marker is created first, so that a segment without tail marker is always complete
+        Path tailPath = tailPathOf(path);
+        FileChannel tailChannel = FileChannel.open(tailPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer tail = tailChannel.map(FileChannel.MapMode.READ_WRITE, 0, TAIL_SIZE);
+            tail.putLong(0, 0);
+            tail.force();
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                return new MappedSegment(path, tailPath, channel, content, tailChannel, tail, openedAt);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            tailChannel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return this.path;
+    }
+
+    long openedAt() {
+        return this.openedAt;
+    }
+
+    int position() {
+        return this.content.position();
+    }
+
+    /**
+     * Copies the line after the content already written.
+     * @return false when there is not enough room left in the segment
+     */
+    boolean append(ByteBuffer line) {
+        if (this.content.remaining() < line.remaining()) {
+            return false;
+        }
+        this.content.put(line);
+        return true;
+    }
+
+    /**
+     * Forces the content to the storage device, then publishes its length in the tail marker,
+     * so that the marker never points past durable content.
+     */
+    void sync() {
+        this.content.force();
+        this.tail.putLong(0, this.content.position());
+        this.tail.force();
+    }
+
+    void close() throws IOException {
+        this.sync();
+        try (FileChannel channel = this.channel; FileChannel tailChannel = this.tailChannel) {
+            channel.truncate(this.content.position());
+            channel.force(true);
+        }
+        Files.delete(this.tailPath);
+    }
+
+    /**
+     * Cuts back the segments left open in the directory to the length in their tail marker.
+     */
+    static void recover(Path directory) throws IOException {
+        try (DirectoryStream<Path> tails = Files.newDirectoryStream(directory, "*" + TAIL_EXTENSION)) {
+            for (Path tailPath: tails) {
+                String fileName = tailPath.getFileName().toString();
+                String baseName = fileName.substring(0, fileName.length() - TAIL_EXTENSION.length());
+                Path segmentPath = tailPath.resolveSibling(baseName + SEGMENT_EXTENSION);
+                if (Files.exists(segmentPath)) {
+                    long length = readTail(tailPath);
+                    try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+                        channel.truncate(length);
+                        channel.force(true);
+                    }
+                }
+                Files.delete(tailPath);
+            }
+        }
+    }
+
+    private static long readTail(Path tailPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(tailPath, StandardOpenOption.READ)) {
+            if (channel.size() < TAIL_SIZE) {
+                return 0;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, TAIL_SIZE).getLong(0);
+        }
+    }
+}
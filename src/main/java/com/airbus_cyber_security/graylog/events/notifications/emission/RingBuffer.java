@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for several producers and a single consumer.
+ * Each slot carries a sequence number telling whether it is free for the producer of a given position,
+ * or filled for the consumer (see Dmitry Vyukov's bounded queue).
+ */
+final class RingBuffer<E> {
+
+    private final int mask;
+
+    private final Object[] elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong head = new AtomicLong();
+
+    RingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2, got " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return this.elements.length;
+    }
+
+    /**
+     * Adds the element at the tail of the buffer.
+     * @return false when the buffer is full
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+        while (true) {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements[index] = element;
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Must only be called by the consumer thread.
+     * @return null when the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = this.head.get();
+        int index = (int) (position & this.mask);
+        if (this.sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) this.elements[index];
+        this.elements[index] = null;
+        this.head.lazySet(position + 1);
+        this.sequences.lazySet(index, position + this.elements.length);
+        return element;
+    }
+
+    int size() {
+        long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.elements.length));
+    }
+
+    boolean isEmpty() {
+        return this.size() == 0;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.execution;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.AbstractIdleService;
+import org.graylog.events.notifications.EventNotificationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Runs notifications on virtual threads, so that the job scheduler threads do not wait for their blocking calls
+ * (backlog search, database reads, appenders). The number of notifications running at once is limited:
+ * past the limit, the notification runs on the calling thread. The limit is read from the plugin configuration
+ * when the service starts.
+ */
+@Singleton
+public class OffloadExecutor extends AbstractIdleService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffloadExecutor.class);
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer completionLatency;
+
+    private final Counter callerRuns;
+
+    private volatile ExecutorService executor;
+
+    private volatile Semaphore permits;
+
+    public interface Task {
+        void run() throws EventNotificationException;
+    }
+
+    @Inject
+    public OffloadExecutor(LoggingAlertConfigCache configCache, MetricRegistry metricRegistry) {
+        this.configCache = configCache;
+        this.completionLatency = metricRegistry.timer(name(OffloadExecutor.class, "completion-latency"));
+        this.callerRuns = metricRegistry.counter(name(OffloadExecutor.class, "caller-runs"));
+        metricRegistry.gauge(name(OffloadExecutor.class, "in-flight"), () -> (Gauge<Integer>) this::inFlight);
+    }
+
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Runs the task on a virtual thread when a permit is available.
+     * @return false when the executor is not running or already runs as many tasks as its limit,
+     * the caller should then run the task itself
+     */
+    public boolean trySubmit(String notificationId, Task task) {
+        ExecutorService currentExecutor = this.executor;
+        Semaphore currentPermits = this.permits;
+        if (currentExecutor == null || !this.isRunning() || !currentPermits.tryAcquire()) {
+            this.callerRuns.inc();
+            return false;
+        }
+        this.inFlight.incrementAndGet();
+        long submitTime = System.nanoTime();
+        try {
+            currentExecutor.execute(() -> this.run(notificationId, task, submitTime, currentPermits));
+        } catch (RejectedExecutionException e) {
+            this.inFlight.decrementAndGet();
+            currentPermits.release();
+            this.callerRuns.inc();
+            return false;
+        }
+        return true;
+    }
+
+    private void run(String notificationId, Task task, long submitTime, Semaphore currentPermits) {
+        try {
+            task.run();
+        } catch (EventNotificationException | RuntimeException e) {
+            LOGGER.error("Could not execute notification {}", notificationId, e);
+        } finally {
+            this.completionLatency.update(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+            this.inFlight.decrementAndGet();
+            currentPermits.release();
+        }
+    }
+
+    @Override
+    protected void startUp() {
+        int concurrency = Math.max(1, this.configCache.get().config().accessOffloadConcurrency());
+        this.permits = new Semaphore(concurrency);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("logging-alert-offload-", 0).factory());
+        LOGGER.debug("Offload executor started with a concurrency of {}", concurrency);
+    }
+
+    /**
+     * Waits for the notifications still running.
+     */
+    @Override
+    protected void shutDown() {
+        this.executor.close();
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-offload-executor";
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds. Buckets grow exponentially: each power of two is split
+ * into 8 buckets, so that a percentile is known within 12.5%.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long nanos) {
+        this.counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Note: the buckets are read one by one, so durations recorded meanwhile may only be partially taken into account.
+     */
+    public Snapshot snapshot() {
+        long[] values = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            values[i] = this.counts.get(i);
+            count += values[i];
+        }
+        return new Snapshot(count, percentile(values, count, 0.5), percentile(values, count, 0.99));
+    }
+
+    private static long percentile(long[] values, long count, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulated = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulated += values[i];
+            if (cumulated >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(values.length - 1);
+    }
+
+    /**
+     * The number of durations recorded and their percentiles, approximated by the upper bound of their bucket.
+     * @param p50 median duration in nanoseconds
+     * @param p99 99th percentile of the durations in nanoseconds
+     */
+    public record Snapshot(long count, long p50, long p99) {}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import com.airbus_cyber_security.graylog.events.notifications.types.LoggingAlert;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Metrics of the log generation, registered in the Graylog metric registry under the name of {@link LoggingAlert}.
+ */
+@Singleton
+public class LoggingAlertMetrics {
+
+    private final MetricRegistry metricRegistry;
+
+    private final Meter notifications;
+
+    private final Histogram backlogSize;
+
+    private final Timer execution;
+
+    private final Timer modelConversion;
+
+    private final Timer urlBuild;
+
+    private final Timer render;
+
+    private final Timer emission;
+
+    private final Map<String, TagCounters> tagCounters = new ConcurrentHashMap<>();
+
+    private record TagCounters(Counter emitted, Counter overflowed) {}
+
+    @Inject
+    public LoggingAlertMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+        this.notifications = metricRegistry.meter(name(LoggingAlert.class, "notifications"));
+        this.backlogSize = metricRegistry.histogram(name(LoggingAlert.class, "backlog-size"));
+        this.execution = metricRegistry.timer(name(LoggingAlert.class, "execution-time"));
+        this.modelConversion = metricRegistry.timer(name(LoggingAlert.class, "model-conversion-time"));
+        this.urlBuild = metricRegistry.timer(name(LoggingAlert.class, "url-build-time"));
+        this.render = metricRegistry.timer(name(LoggingAlert.class, "render-time"));
+        this.emission = metricRegistry.timer(name(LoggingAlert.class, "emission-time"));
+    }
+
+    public Meter notifications() {
+        return this.notifications;
+    }
+
+    public Histogram backlogSize() {
+        return this.backlogSize;
+    }
+
+    public Timer execution() {
+        return this.execution;
+    }
+
+    public Timer modelConversion() {
+        return this.modelConversion;
+    }
+
+    public Timer urlBuild() {
+        return this.urlBuild;
+    }
+
+    public Timer render() {
+        return this.render;
+    }
+
+    public Timer emission() {
+        return this.emission;
+    }
+
+    /**
+     * Number of logs emitted with the alert tag.
+     */
+    public Counter emitted(String alertTag) {
+        return this.getTagCounters(alertTag).emitted();
+    }
+
+    /**
+     * Number of logs of the alert tag which overflowed, whether they were emitted with the overflow tag or counted in the digest.
+     */
+    public Counter overflowed(String alertTag) {
+        return this.getTagCounters(alertTag).overflowed();
+    }
+
+    private TagCounters getTagCounters(String alertTag) {
+        return this.tagCounters.computeIfAbsent(alertTag, tag -> new TagCounters(
+                this.metricRegistry.counter(name(LoggingAlert.class, "tags", tag, "emitted")),
+                this.metricRegistry.counter(name(LoggingAlert.class, "tags", tag, "overflowed"))));
+    }
+}
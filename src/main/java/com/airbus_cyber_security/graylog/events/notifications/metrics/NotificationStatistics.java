@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Statistics of each notification executed on this node, kept in memory since the node started.
+ * They are only updated with lock-free counters, so that they add little to the execution of the notifications.
+ * The statistics of a notification which was not executed for a day are removed, so that those of deleted
+ * notifications do not accumulate.
+ */
+@Singleton
+public class NotificationStatistics {
+
+    private static final long BACKLOG_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    static final long IDLE_EXPIRATION_NANOS = TimeUnit.DAYS.toNanos(1);
+
+    // Note: the last use of an entry is only updated once per interval, so that executions do not all write it
+    private static final long LAST_USE_PRECISION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextEviction;
+
+    @Inject
+    public NotificationStatistics() {
+        this(System::nanoTime);
+    }
+
+    NotificationStatistics(LongSupplier clock) {
+        this.clock = clock;
+        this.nextEviction = new AtomicLong(clock.getAsLong() + EVICTION_INTERVAL_NANOS);
+    }
+
+    public static final class Entry {
+
+        private final LongAdder executions = new LongAdder();
+
+        private final LongAdder emitted = new LongAdder();
+
+        private final LongAdder overflowed = new LongAdder();
+
+        private final LatencyHistogram render = new LatencyHistogram();
+
+        private final LatencyHistogram emission = new LatencyHistogram();
+
+        // Note: largest backlog over the last 5 to 10 minutes
+        private final RecentMaximum largestBacklog;
+
+        private volatile long lastUse;
+
+        Entry(LongSupplier clock, long now) {
+            this.largestBacklog = new RecentMaximum(BACKLOG_WINDOW_NANOS, clock);
+            this.lastUse = now;
+        }
+
+        private void used(long now) {
+            if (now - this.lastUse > LAST_USE_PRECISION_NANOS) {
+                this.lastUse = now;
+            }
+        }
+
+        public LongAdder executions() {
+            return this.executions;
+        }
+
+        /**
+         * Number of logs emitted with the alert tag.
+         */
+        public LongAdder emitted() {
+            return this.emitted;
+        }
+
+        /**
+         * Number of logs which overflowed, whether they were emitted with the overflow tag or counted in the digest.
+         */
+        public LongAdder overflowed() {
+            return this.overflowed;
+        }
+
+        public LatencyHistogram render() {
+            return this.render;
+        }
+
+        public LatencyHistogram emission() {
+            return this.emission;
+        }
+
+        public RecentMaximum largestBacklog() {
+            return this.largestBacklog;
+        }
+    }
+
+    public Entry get(String notificationId) {
+        long now = this.clock.getAsLong();
+        this.evictIdleEntries(now);
+        Entry entry = this.entries.get(notificationId);
+        if (entry == null) {
+            entry = this.entries.computeIfAbsent(notificationId, key -> new Entry(this.clock, now));
+        }
+        entry.used(now);
+        return entry;
+    }
+
+    // Note: run at most once per interval, by the execution which finds it elapsed
+    private void evictIdleEntries(long now) {
+        long next = this.nextEviction.get();
+        if (now - next < 0 || !this.nextEviction.compareAndSet(next, now + EVICTION_INTERVAL_NANOS)) {
+            return;
+        }
+        this.entries.values().removeIf(entry -> now - entry.lastUse > IDLE_EXPIRATION_NANOS);
+    }
+
+    public Map<String, Entry> entries() {
+        return this.entries;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free maximum of the values recorded over the current and the previous window of time.
+ * Note: a value recorded while the window changes may be lost, which is acceptable for statistics.
+ */
+public final class RecentMaximum {
+
+    private final long windowNanos;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong window;
+
+    private final AtomicLong current = new AtomicLong();
+
+    private final AtomicLong previous = new AtomicLong();
+
+    RecentMaximum(long windowNanos, LongSupplier clock) {
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+        this.window = new AtomicLong(this.currentWindow());
+    }
+
+    private long currentWindow() {
+        return Math.floorDiv(this.clock.getAsLong(), this.windowNanos);
+    }
+
+    public void record(long value) {
+        this.rotate();
+        this.current.accumulateAndGet(value, Math::max);
+    }
+
+    public long get() {
+        this.rotate();
+        return Math.max(this.current.get(), this.previous.get());
+    }
+
+    private void rotate() {
+        long now = this.currentWindow();
+        long last = this.window.get();
+        if (now != last && this.window.compareAndSet(last, now)) {
+            long lastMaximum = this.current.getAndSet(0);
+            this.previous.set(now == last + 1 ? lastMaximum : 0);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import org.graylog2.plugin.periodical.Periodical;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+
+/**
+ * Gives back to the cluster budget store the tokens of the idle leases of this node.
+ */
+public class ClusterBudgetPeriodical extends Periodical {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterBudgetPeriodical.class);
+
+    private final ClusterOverflowBudget clusterBudget;
+
+    @Inject
+    public ClusterBudgetPeriodical(ClusterOverflowBudget clusterBudget) {
+        this.clusterBudget = clusterBudget;
+    }
+
+    @Override
+    public void doRun() {
+        this.clusterBudget.reconcile();
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return true;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return 10;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return 10;
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+}
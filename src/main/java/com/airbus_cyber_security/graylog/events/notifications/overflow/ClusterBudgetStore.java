@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+/**
+ * Shared counters of the tokens consumed by the nodes of the cluster.
+ */
+public interface ClusterBudgetStore {
+
+    /**
+     * Atomically adds the amount to the counter, which is created when it does not exist yet.
+     * @param expiresAt time (in milliseconds since the epoch) after which the counter may be removed
+     * @return the value of the counter, amount included
+     */
+    long consume(String key, long amount, long expiresAt);
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Limits the number of logs emitted with each tag over a period of time, across all the nodes of the cluster.
+ * The consumption of each tag is counted in the {@link ClusterBudgetStore} for fixed windows of the period.
+ * A node leases tokens from the store by batches and spends them locally, so that the store is only reached
+ * once per batch. The tokens of a lease which stayed idle between two calls of {@link #reconcile()} are given back
+ * to the store, so that the other nodes may spend them. Tokens left in a lease when its window ends are lost,
+ * so the budget is reconciled with the store at each window. A node which reached the limit checks the store again
+ * after a backoff, so that it may spend the tokens given back by the other nodes. When the store cannot be reached,
+ * logs are not limited by the cluster budget.
+ */
+@Singleton
+public class ClusterOverflowBudget {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterOverflowBudget.class);
+
+    private static final long FAILURE_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    // Note: the same as the period of the reconciliation, which gives back the idle tokens
+    private static final long EXHAUSTED_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final ClusterBudgetStore store;
+
+    private final LongSupplier clock;
+
+    private final Counter leases;
+
+    private final Counter storeFailures;
+
+    private final Counter returnedTokens;
+
+    private final Map<String, Lease> tagLeases = new ConcurrentHashMap<>();
+
+    @Inject
+    public ClusterOverflowBudget(ClusterBudgetStore store, MetricRegistry metricRegistry) {
+        this(store, metricRegistry, System::currentTimeMillis);
+    }
+
+    ClusterOverflowBudget(ClusterBudgetStore store, MetricRegistry metricRegistry, LongSupplier clock) {
+        this.store = store;
+        this.clock = clock;
+        this.leases = metricRegistry.counter(name(ClusterOverflowBudget.class, "leases"));
+        this.storeFailures = metricRegistry.counter(name(ClusterOverflowBudget.class, "store-failures"));
+        this.returnedTokens = metricRegistry.counter(name(ClusterOverflowBudget.class, "returned-tokens"));
+    }
+
+    /**
+     * Spends a token of the tag, leasing a new batch of tokens from the store when the current lease is spent.
+     * @param limit maximum number of logs per period over the cluster, 0 or less for no limit
+     * @param leaseSize number of tokens leased at once from the store
+     * @return false when the tag already reached its limit over the current window
+     */
+    public boolean tryAcquire(String tag, int limit, int periodInSeconds, int leaseSize) {
+        if (limit <= 0 || periodInSeconds <= 0) {
+            return true;
+        }
+        long now = this.clock.getAsLong();
+        long period = TimeUnit.SECONDS.toMillis(periodInSeconds);
+        long windowStart = now - Math.floorMod(now, period);
+        Lease lease = this.tagLeases.computeIfAbsent(tag, Lease::new);
+        if (lease.windowStart == windowStart && lease.remaining.decrementAndGet() >= 0) {
+            return true;
+        }
+        return lease.renew(now, windowStart, period, limit, Math.max(1, Math.min(leaseSize, limit)));
+    }
+
+    /**
+     * Gives back to the store the unspent tokens of the leases of the current window from which no token was spent
+     * since the previous call.
+     */
+    public void reconcile() {
+        long now = this.clock.getAsLong();
+        for (Lease lease: this.tagLeases.values()) {
+            lease.reconcile(now);
+        }
+    }
+
+    private final class Lease {
+
+        private final String tag;
+
+        private final AtomicLong remaining = new AtomicLong();
+
+        // Note: only updated under the lock of the lease
+        private volatile long windowStart = Long.MIN_VALUE;
+
+        private long exhaustedUntil;
+
+        private long unavailableUntil;
+
+        private long period;
+
+        private long remainingAtLastReconciliation = -1;
+
+        Lease(String tag) {
+            this.tag = tag;
+        }
+
+        private String key() {
+            return this.tag + "@" + this.windowStart;
+        }
+
+        synchronized void reconcile(long now) {
+            long unspent = this.remaining.get();
+            boolean idle = unspent > 0 && unspent == this.remainingAtLastReconciliation && now < this.windowStart + this.period;
+            this.remainingAtLastReconciliation = unspent;
+            // Note: a thread which spends a token meanwhile makes the compare and set fail, the lease is then not idle
+            if (!idle || !this.remaining.compareAndSet(unspent, 0)) {
+                return;
+            }
+            try {
+                ClusterOverflowBudget.this.store.consume(this.key(), -unspent, this.windowStart + 2 * this.period);
+                ClusterOverflowBudget.this.returnedTokens.inc(unspent);
+            } catch (RuntimeException e) {
+                ClusterOverflowBudget.this.storeFailures.inc();
+                LOGGER.warn("Could not give back {} unspent tokens of the cluster budget of tag {}", unspent, this.tag, e);
+            }
+        }
+
+        synchronized boolean renew(long now, long currentWindowStart, long period, int limit, int leaseSize) {
+            if (currentWindowStart > this.windowStart) {
+                this.remaining.set(0);
+                this.exhaustedUntil = 0;
+                this.windowStart = currentWindowStart;
+                this.period = period;
+            } else if (this.remaining.decrementAndGet() >= 0) {
+                // Note: another thread renewed the lease meanwhile
+                return true;
+            }
+            if (now < this.exhaustedUntil) {
+                return false;
+            }
+            if (now < this.unavailableUntil) {
+                return true;
+            }
+            long consumed;
+            try {
+                consumed = ClusterOverflowBudget.this.store.consume(this.key(), leaseSize, this.windowStart + 2 * period);
+            } catch (RuntimeException e) {
+                ClusterOverflowBudget.this.storeFailures.inc();
+                LOGGER.warn("Could not lease tokens of the cluster budget of tag {}, logs are not limited by it for {} ms",
+                        this.tag, FAILURE_BACKOFF_MILLIS, e);
+                this.unavailableUntil = now + FAILURE_BACKOFF_MILLIS;
+                return true;
+            }
+            ClusterOverflowBudget.this.leases.inc();
+            long granted = Math.max(0, Math.min(leaseSize, limit - (consumed - leaseSize)));
+            if (granted < leaseSize) {
+                this.giveBack(leaseSize - granted);
+            }
+            if (granted == 0) {
+                this.exhaustedUntil = now + EXHAUSTED_BACKOFF_MILLIS;
+                return false;
+            }
+            this.remaining.set(granted - 1);
+            this.remainingAtLastReconciliation = -1;
+            return true;
+        }
+
+        // Note: the tokens which were not granted are given back, otherwise each check of an exhausted budget would consume them
+        private void giveBack(long tokens) {
+            try {
+                ClusterOverflowBudget.this.store.consume(this.key(), -tokens, this.windowStart + 2 * this.period);
+            } catch (RuntimeException e) {
+                ClusterOverflowBudget.this.storeFailures.inc();
+                LOGGER.warn("Could not give back {} tokens not granted of the cluster budget of tag {}", tokens, this.tag, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.graylog2.database.MongoConnection;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the counters in a collection of the MongoDB database of Graylog. Each counter is a document incremented
+ * with a single upsert, and removed by a TTL index once it expired. The collection and its index are only created
+ * on the first use of the store, so that nodes without cluster budget do not reach the database.
+ */
+@Singleton
+public class MongoClusterBudgetStore implements ClusterBudgetStore {
+
+    static final String COLLECTION_NAME = "logging_alert_cluster_budgets";
+
+    private static final String FIELD_ID = "_id";
+
+    private static final String FIELD_CONSUMED = "consumed";
+
+    private static final String FIELD_EXPIRES_AT = "expires_at";
+
+    private final MongoConnection mongoConnection;
+
+    private volatile MongoCollection<Document> collection;
+
+    @Inject
+    public MongoClusterBudgetStore(MongoConnection mongoConnection) {
+        this.mongoConnection = mongoConnection;
+    }
+
+    // Note: the index is created again on the next call when its creation failed
+    private MongoCollection<Document> collection() {
+        MongoCollection<Document> current = this.collection;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (this.collection == null) {
+                MongoCollection<Document> created = this.mongoConnection.getMongoDatabase().getCollection(COLLECTION_NAME);
+                created.createIndex(Indexes.ascending(FIELD_EXPIRES_AT), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+                this.collection = created;
+            }
+            return this.collection;
+        }
+    }
+
+    @Override
+    public long consume(String key, long amount, long expiresAt) {
+        Document counter = this.collection().findOneAndUpdate(Filters.eq(FIELD_ID, key),
+                Updates.combine(Updates.inc(FIELD_CONSUMED, amount), Updates.setOnInsert(FIELD_EXPIRES_AT, Date.from(Instant.ofEpochMilli(expiresAt)))),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return counter.get(FIELD_CONSUMED, Number.class).longValue();
+    }
+}
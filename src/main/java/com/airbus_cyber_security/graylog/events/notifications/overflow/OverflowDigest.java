@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogDestination;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog2.plugin.MessageSummary;
+import org.graylog2.plugin.Tools;
+import org.joda.time.DateTime;
+
+import jakarta.annotation.Nullable;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the overflowed messages instead of logging each of them.
+ * Messages are counted per notification, event definition and group-by key. Each count is turned into a single
+ * summary log once its interval elapsed (see {@link OverflowDigestPeriodical}).
+ * The number of counts is capped: past the cap, messages of new group-by keys are counted under the
+ * {@value #OTHER_GROUP_BY_KEY} key of their notification and event definition.
+ * Each summary goes to the syslog receiver of the last notification counted (see {@link Summary#syslogDestination()}).
+ */
+@Singleton
+public class OverflowDigest {
+
+    static final String OTHER_GROUP_BY_KEY = "(other keys)";
+
+    private static final int DEFAULT_MAXIMUM_KEYS = 10000;
+
+    private record Key(String notificationId, String eventDefinitionId, String groupByKey) {}
+
+    /**
+     * A summary log with the syslog receiver it goes to, null when it goes to the local sink.
+     */
+    public record Summary(@Nullable SyslogDestination syslogDestination, String message) {}
+
+    private static final class Accumulator {
+
+        private final DateTime openedAt;
+
+        private long count;
+
+        private DateTime firstTimestamp;
+
+        private DateTime lastTimestamp;
+
+        private String sample;
+
+        private SyslogDestination syslogDestination;
+
+        Accumulator(DateTime openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        void add(DateTime timestamp, String message, @Nullable SyslogDestination syslogDestination) {
+            this.syslogDestination = syslogDestination;
+            if (this.count == 0) {
+                this.sample = message;
+            }
+            this.count++;
+            if (this.firstTimestamp == null || timestamp.isBefore(this.firstTimestamp)) {
+                this.firstTimestamp = timestamp;
+            }
+            if (this.lastTimestamp == null || timestamp.isAfter(this.lastTimestamp)) {
+                this.lastTimestamp = timestamp;
+            }
+        }
+    }
+
+    private final Map<Key, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    private final int maximumKeys;
+
+    public OverflowDigest() {
+        this(DEFAULT_MAXIMUM_KEYS);
+    }
+
+    OverflowDigest(int maximumKeys) {
+        this.maximumKeys = maximumKeys;
+    }
+
+    /**
+     * Counts the overflowed message under the key of its notification, event definition and group-by key.
+     * @param message the overflowed message, null when the log is generated for the whole backlog
+     * @param syslogDestination the syslog receiver of the notification, null when it logs to the local sink
+     */
+    public void add(EventNotificationContext context, @Nullable MessageSummary message, @Nullable SyslogDestination syslogDestination) {
+        EventDto event = context.event();
+        Key key = new Key(context.notificationId(), event.eventDefinitionId(), event.key());
+        // Note: the cap is checked without a lock, so concurrent notifications may go slightly past it
+        if (this.accumulators.size() >= this.maximumKeys && !this.accumulators.containsKey(key)) {
+            key = new Key(context.notificationId(), event.eventDefinitionId(), OTHER_GROUP_BY_KEY);
+        }
+        DateTime timestamp = (message == null) ? event.eventTimestamp() : message.getTimestamp();
+        String sample = (message == null) ? event.message() : message.getMessage();
+        this.accumulators.compute(key, (k, accumulator) -> {
+            Accumulator result = (accumulator == null) ? new Accumulator(Tools.nowUTC()) : accumulator;
+            result.add(timestamp, sample, syslogDestination);
+            return result;
+        });
+    }
+
+    /**
+     * Removes the counts opened for at least the interval and builds their summary logs.
+     */
+    public List<Summary> flush(DateTime now, int intervalInSeconds, String separator) {
+        return this.flush(now.minusSeconds(intervalInSeconds), separator);
+    }
+
+    /**
+     * Removes all the counts, whatever their interval, and builds their summary logs.
+     */
+    public List<Summary> flushAll(String separator) {
+        return this.flush(null, separator);
+    }
+
+    private List<Summary> flush(@Nullable DateTime openedBefore, String separator) {
+        List<Summary> result = new ArrayList<>();
+        for (Key key: this.accumulators.keySet()) {
+            this.accumulators.computeIfPresent(key, (k, accumulator) -> {
+                if (openedBefore != null && accumulator.openedAt.isAfter(openedBefore)) {
+                    return accumulator;
+                }
+                result.add(new Summary(accumulator.syslogDestination, buildSummary(k, accumulator, separator)));
+                return null;
+            });
+        }
+        return result;
+    }
+
+    public int size() {
+        return this.accumulators.size();
+    }
+
+    private static String buildSummary(Key key, Accumulator accumulator, String separator) {
+        return "type: overflow_digest" + separator +
+                "notification_id: " + key.notificationId() + separator +
+                "event_definition_id: " + key.eventDefinitionId() + separator +
+                "key: " + key.groupByKey() + separator +
+                "count: " + accumulator.count + separator +
+                "first_timestamp: " + accumulator.firstTimestamp + separator +
+                "last_timestamp: " + accumulator.lastTimestamp + separator +
+                "sample: " + accumulator.sample;
+    }
+}
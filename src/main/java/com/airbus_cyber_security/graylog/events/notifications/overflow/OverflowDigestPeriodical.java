@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertEmitter;
+import org.graylog.events.notifications.TemporaryEventNotificationException;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.periodical.Periodical;
+import org.graylog2.system.shutdown.GracefulShutdownHook;
+import org.graylog2.system.shutdown.GracefulShutdownService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import java.util.List;
+
+/**
+ * Logs the summaries of the overflow digest, with the overflow tag, once their interval elapsed.
+ * On graceful shutdown, all the remaining counts are logged so that they are not lost.
+ */
+public class OverflowDigestPeriodical extends Periodical implements GracefulShutdownHook {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OverflowDigestPeriodical.class);
+
+    private final OverflowDigest digest;
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final AlertEmitter alertEmitter;
+
+    private final GracefulShutdownService gracefulShutdownService;
+
+    @Inject
+    public OverflowDigestPeriodical(OverflowDigest digest, LoggingAlertConfigCache configCache, AlertEmitter alertEmitter,
+                                    GracefulShutdownService gracefulShutdownService) {
+        this.digest = digest;
+        this.configCache = configCache;
+        this.alertEmitter = alertEmitter;
+        this.gracefulShutdownService = gracefulShutdownService;
+    }
+
+    @Override
+    public void initialize() {
+        this.gracefulShutdownService.register(this);
+    }
+
+    @Override
+    public void doRun() {
+        if (this.digest.size() == 0) {
+            return;
+        }
+        LoggingAlertConfigCache.Snapshot generalConfig = this.configCache.get();
+        int interval = generalConfig.config().accessOverflowDigestInterval();
+        this.emit(generalConfig, this.digest.flush(Tools.nowUTC(), interval, generalConfig.separator()));
+    }
+
+    @Override
+    public void doGracefulShutdown() {
+        if (this.digest.size() == 0) {
+            return;
+        }
+        LoggingAlertConfigCache.Snapshot generalConfig = this.configCache.get();
+        this.emit(generalConfig, this.digest.flushAll(generalConfig.separator()));
+    }
+
+    private void emit(LoggingAlertConfigCache.Snapshot generalConfig, List<OverflowDigest.Summary> summaries) {
+        for (OverflowDigest.Summary summary: summaries) {
+            try {
+                this.alertEmitter.emit(generalConfig, summary.syslogDestination(), generalConfig.overflowTag(), summary.message());
+            } catch (TemporaryEventNotificationException e) {
+                LOGGER.error("Could not emit overflow digest", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return true;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return 1;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return 1;
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+}
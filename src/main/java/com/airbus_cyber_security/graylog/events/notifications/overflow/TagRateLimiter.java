@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of logs emitted with each tag over a period of time, across all the notifications of the node.
+ * Each tag gets a token bucket of the size of the limit, refilled continuously over the period.
+ * The bucket is implemented as a generic cell rate algorithm: its whole state is a single theoretical arrival time,
+ * updated with a compare-and-set, so that concurrent notifications never wait for a lock.
+ */
+@Singleton
+public class TagRateLimiter {
+
+    private final LongSupplier clock;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public TagRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    TagRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Takes the emission of one log with the tag from its rate limit.
+     * @param limit maximum number of logs per period, 0 or less for no limit
+     * @return false when the tag already reached its limit over the last period
+     */
+    public boolean tryAcquire(String tag, int limit, int periodInSeconds) {
+        if (limit <= 0 || periodInSeconds <= 0) {
+            return true;
+        }
+        Bucket bucket = this.buckets.get(tag);
+        if (bucket == null || !bucket.hasSettings(limit, periodInSeconds)) {
+            long now = this.clock.getAsLong();
+            bucket = this.buckets.compute(tag, (key, current) ->
+                    (current != null && current.hasSettings(limit, periodInSeconds)) ? current : new Bucket(limit, periodInSeconds, now));
+        }
+        return bucket.tryAcquire(this.clock.getAsLong());
+    }
+
+    /**
+     * Gives back a log acquired with the same settings, when it was not emitted with the tag after all.
+     */
+    public void release(String tag, int limit, int periodInSeconds) {
+        if (limit <= 0 || periodInSeconds <= 0) {
+            return;
+        }
+        Bucket bucket = this.buckets.get(tag);
+        if (bucket != null && bucket.hasSettings(limit, periodInSeconds)) {
+            bucket.release(this.clock.getAsLong());
+        }
+    }
+
+    private static final class Bucket {
+
+        private final int limit;
+
+        private final int periodInSeconds;
+
+        // interval between two logs at the sustained rate
+        private final long emissionInterval;
+
+        // how far ahead of the sustained rate a burst may go
+        private final long tolerance;
+
+        private final AtomicLong theoreticalArrivalTime;
+
+        Bucket(int limit, int periodInSeconds, long now) {
+            this.limit = limit;
+            this.periodInSeconds = periodInSeconds;
+            long period = TimeUnit.SECONDS.toNanos(periodInSeconds);
+            this.emissionInterval = Math.max(1, period / limit);
+            this.tolerance = period - this.emissionInterval;
+            this.theoreticalArrivalTime = new AtomicLong(now);
+        }
+
+        boolean hasSettings(int limit, int periodInSeconds) {
+            return this.limit == limit && this.periodInSeconds == periodInSeconds;
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long current = this.theoreticalArrivalTime.get();
+                long start = (current - now > 0) ? current : now;
+                if (start - now > this.tolerance) {
+                    return false;
+                }
+                if (this.theoreticalArrivalTime.compareAndSet(current, start + this.emissionInterval)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long now) {
+            while (true) {
+                long current = this.theoreticalArrivalTime.get();
+                long released = current - this.emissionInterval;
+                if (released - now < 0) {
+                    released = now;
+                }
+                if (released == current || this.theoreticalArrivalTime.compareAndSet(current, released)) {
+                    return;
+                }
+            }
+        }
+    }
+}
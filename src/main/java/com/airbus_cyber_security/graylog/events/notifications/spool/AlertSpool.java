@@ -0,0 +1,554 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.spool;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertSink;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Journals the logs in local append-only segment files before they are emitted, then emits them to the {@link AlertSink}
+ * from a dedicated thread. The position of the last emitted log is acknowledged in a file, so that the logs which were
+ * not emitted yet are replayed when the plugin starts again (at-least-once delivery across a crash or a restart).
+ * Logs are forced to the storage device before they are emitted. Emitted segments are removed.
+ * Note that the sinks handle their own write failures without throwing: an emission is only retried when the sink throws
+ * unexpectedly, so the spool protects against the loss of the logs not emitted yet when the server stops, not against
+ * a failing sink. Logs of notifications with a syslog receiver are not spooled.
+ * Logs are not journaled when the spool exceeds its maximum size: they are then emitted at once without being spooled,
+ * ahead of the older logs still waiting in the spool.
+ * The spool directory is opened when the service starts if it already exists, or on the first spooled log.
+ * The service thread is parked while there is nothing to emit.
+ */
+@Singleton
+public class AlertSpool extends AbstractExecutionThreadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AlertSpool.class);
+
+    static final String SEGMENT_PREFIX = "spool-";
+
+    static final String SEGMENT_EXTENSION = ".log";
+
+    static final String ACKNOWLEDGEMENT_FILE = "spool.ack";
+
+    private static final int ACKNOWLEDGEMENT_SIZE = 2 * Long.BYTES;
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final long MAXIMUM_SEGMENT_SIZE = 16 * BYTES_PER_MEGABYTE;
+
+    private static final int INITIAL_CHUNK_SIZE = 64 * 1024;
+
+    private static final int ACKNOWLEDGEMENT_BATCH = 1000;
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
+
+    private static final long MAXIMUM_RETRY_DELAY_MILLIS = 30_000;
+
+    private static final long RETRY_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LoggingAlertConfigCache configCache;
+
+    private final AlertSink sink;
+
+    private final Counter rejected;
+
+    private final Counter retries;
+
+    private final Counter skippedCorruptions;
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final Object writeLock = new Object();
+
+    // Note: the fields below are guarded by the write lock
+    private Path directory;
+
+    private long maximumSize;
+
+    private long segmentSize;
+
+    private FileChannel writeChannel;
+
+    private OutputStream output;
+
+    private boolean openFailed;
+
+    private boolean stopped;
+
+    // Note: published last when the spool is opened, null until then
+    private volatile WriteMark mark;
+
+    private volatile Thread drainer;
+
+    private volatile boolean drainerParked;
+
+    // Note: the fields below are only accessed by the service thread once the mark is published
+    private long readSegmentId;
+
+    private long readPosition;
+
+    private FileChannel readChannel;
+
+    private WriteMark syncedMark;
+
+    private byte[] chunk = new byte[INITIAL_CHUNK_SIZE];
+
+    private FileChannel acknowledgementChannel;
+
+    private MappedByteBuffer acknowledgement;
+
+    private record WriteMark(long segmentId, long position) {}
+
+    @Inject
+    public AlertSpool(LoggingAlertConfigCache configCache, AlertSink sink, MetricRegistry metricRegistry) {
+        this.configCache = configCache;
+        this.sink = sink;
+        this.rejected = metricRegistry.counter(name(AlertSpool.class, "rejected"));
+        this.retries = metricRegistry.counter(name(AlertSpool.class, "retries"));
+        this.skippedCorruptions = metricRegistry.counter(name(AlertSpool.class, "skipped-corruptions"));
+        metricRegistry.gauge(name(AlertSpool.class, "size"), () -> (Gauge<Long>) this.size::get);
+    }
+
+    public long size() {
+        return this.size.get();
+    }
+
+    /**
+     * Journals the log in the current segment, to be emitted by the spool thread.
+     * @return false when the log could not be journaled, it should then be emitted directly
+     */
+    public boolean append(String tag, String message) {
+        if (!this.isRunning()) {
+            return false;
+        }
+        byte[] record = SpoolRecord.encode(tag, message);
+        synchronized (this.writeLock) {
+            if (this.stopped || !this.tryOpen()) {
+                this.rejected.inc();
+                return false;
+            }
+            if (this.size.get() + record.length > this.maximumSize) {
+                this.rejected.inc();
+                return false;
+            }
+            try {
+                WriteMark current = this.mark;
+                if (this.writeChannel == null || (current.position() > 0 && current.position() + record.length > this.segmentSize)) {
+                    this.closeWriteSegment();
+                    this.openWriteSegment(current.segmentId() + 1);
+                }
+                this.output.write(record);
+            } catch (IOException e) {
+                LOGGER.error("Could not append log to spool segment, emitting it without spooling", e);
+                this.abandonWriteSegment();
+                this.rejected.inc();
+                return false;
+            }
+            this.size.addAndGet(record.length);
+            this.mark = new WriteMark(this.mark.segmentId(), this.mark.position() + record.length);
+        }
+        this.wakeDrainer();
+        return true;
+    }
+
+    private void wakeDrainer() {
+        if (this.drainerParked) {
+            LockSupport.unpark(this.drainer);
+        }
+    }
+
+    private Path segmentPath(long segmentId) {
+        return this.directory.resolve(SEGMENT_PREFIX + String.format(Locale.ROOT, "%020d", segmentId) + SEGMENT_EXTENSION);
+    }
+
+    private boolean tryOpen() {
+        if (this.mark != null) {
+            return true;
+        }
+        if (this.openFailed) {
+            return false;
+        }
+        LoggingAlertConfig config = this.configCache.get().config();
+        Path path = Paths.get(config.accessSpoolDirectory());
+        try {
+            this.open(path, config.accessSpoolMaxSize() * BYTES_PER_MEGABYTE);
+            // Note: the logs left by a previous run are replayed even if the next logs are not spooled
+            this.wakeDrainer();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Could not open spool directory {}, logs are emitted without being spooled until the next start", path, e);
+            this.openFailed = true;
+            this.closeQuietly(this.acknowledgementChannel);
+            return false;
+        }
+    }
+
+    private void open(Path path, long maximumSize) throws IOException {
+        Files.createDirectories(path);
+        this.directory = path;
+        this.maximumSize = maximumSize;
+        this.segmentSize = Math.max(1, Math.min(MAXIMUM_SEGMENT_SIZE, maximumSize / 4));
+        this.acknowledgementChannel = FileChannel.open(path.resolve(ACKNOWLEDGEMENT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.acknowledgement = this.acknowledgementChannel.map(FileChannel.MapMode.READ_WRITE, 0, ACKNOWLEDGEMENT_SIZE);
+        long acknowledgedSegmentId = this.acknowledgement.getLong(0);
+        long acknowledgedPosition = this.acknowledgement.getLong(Long.BYTES);
+
+        NavigableMap<Long, Path> segments = this.listSegments();
+        long pendingSize = 0;
+        for (Map.Entry<Long, Path> segment: segments.entrySet()) {
+            if (segment.getKey() < acknowledgedSegmentId) {
+                Files.delete(segment.getValue());
+            } else {
+                pendingSize += Files.size(segment.getValue());
+            }
+        }
+        segments.headMap(acknowledgedSegmentId).clear();
+        this.size.set(pendingSize);
+
+        long writeSegmentId = segments.isEmpty() ? acknowledgedSegmentId : Math.max(segments.lastKey() + 1, acknowledgedSegmentId);
+        if (segments.containsKey(acknowledgedSegmentId)) {
+            this.readSegmentId = acknowledgedSegmentId;
+            this.readPosition = acknowledgedPosition;
+        } else {
+            this.readSegmentId = segments.isEmpty() ? writeSegmentId : segments.firstKey();
+            this.readPosition = 0;
+        }
+        if (pendingSize > 0) {
+            LOGGER.info("Replaying {} bytes of spooled logs from {}", pendingSize, path);
+        }
+        this.openWriteSegment(writeSegmentId);
+    }
+
+    private NavigableMap<Long, Path> listSegments() throws IOException {
+        NavigableMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory, SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+            for (Path path: paths) {
+                String fileName = path.getFileName().toString();
+                String identifier = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_EXTENSION.length());
+                try {
+                    segments.put(Long.parseLong(identifier), path);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Ignoring unexpected file {} in spool directory", path);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private void openWriteSegment(long segmentId) throws IOException {
+        this.writeChannel = FileChannel.open(this.segmentPath(segmentId), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.output = Channels.newOutputStream(this.writeChannel);
+        this.mark = new WriteMark(segmentId, 0);
+    }
+
+    private void closeWriteSegment() throws IOException {
+        if (this.writeChannel == null) {
+            return;
+        }
+        try (FileChannel channel = this.writeChannel) {
+            this.writeChannel = null;
+            this.output = null;
+            channel.force(false);
+        }
+    }
+
+    // Note: the next log starts a new segment, the reader skips the incomplete record left at the end of this one
+    private void abandonWriteSegment() {
+        if (this.writeChannel == null) {
+            return;
+        }
+        try {
+            this.size.addAndGet(Math.max(0, this.writeChannel.size() - this.mark.position()));
+        } catch (IOException e) {
+            LOGGER.debug("Could not read size of abandoned spool segment", e);
+        }
+        this.closeQuietly(this.writeChannel);
+        this.writeChannel = null;
+        this.output = null;
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close spool file", e);
+        }
+    }
+
+    @Override
+    protected void startUp() {
+        Path path = Paths.get(this.configCache.get().config().accessSpoolDirectory());
+        if (Files.isDirectory(path)) {
+            synchronized (this.writeLock) {
+                this.tryOpen();
+            }
+        }
+    }
+
+    @Override
+    protected void run() {
+        this.drainer = Thread.currentThread();
+        while (this.isRunning()) {
+            try {
+                if (this.drain() == 0) {
+                    this.parkWhileIdle();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Could not read spool segment {}, retrying", this.readSegmentId, e);
+                this.closeQuietly(this.readChannel);
+                this.readChannel = null;
+                this.pause(MAXIMUM_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void parkWhileIdle() {
+        this.drainerParked = true;
+        // Note: checked again after publishing drainerParked, so that a log appended meanwhile is not left waiting
+        if (Objects.equals(this.mark, this.syncedMark) && this.isRunning()) {
+            LockSupport.park(this);
+        }
+        this.drainerParked = false;
+    }
+
+    @Override
+    protected void triggerShutdown() {
+        Thread current = this.drainer;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    protected void shutDown() throws IOException {
+        synchronized (this.writeLock) {
+            this.stopped = true;
+            this.closeWriteSegment();
+        }
+        if (this.mark == null) {
+            return;
+        }
+        try {
+            int count = this.drain();
+            LOGGER.debug("Spool stopped, {} remaining logs emitted, {} bytes left to replay", count, this.size.get());
+        } finally {
+            this.closeQuietly(this.readChannel);
+            this.closeQuietly(this.acknowledgementChannel);
+        }
+    }
+
+    /**
+     * Emits the logs journaled since the last call, up to an acknowledgement batch.
+     * @return the number of emitted logs
+     */
+    private int drain() throws IOException {
+        WriteMark currentMark = this.mark;
+        if (currentMark == null) {
+            return 0;
+        }
+        this.syncWriteSegment(currentMark);
+        int count = 0;
+        try {
+            while (count < ACKNOWLEDGEMENT_BATCH) {
+                boolean closed = this.readSegmentId < currentMark.segmentId();
+                long limit = closed ? this.readSegmentLength() : currentMark.position();
+                if (this.readPosition >= limit) {
+                    if (!closed) {
+                        return count;
+                    }
+                    this.removeReadSegment();
+                    continue;
+                }
+                ByteBuffer records = this.readChunk(limit);
+                boolean complete = this.readPosition + records.limit() >= limit;
+                while (records.hasRemaining() && count < ACKNOWLEDGEMENT_BATCH) {
+                    SpoolRecord record;
+                    try {
+                        record = SpoolRecord.read(records, this.maximumSize);
+                    } catch (SpoolRecord.CorruptedException e) {
+                        this.skipCorruption(limit, e.getMessage());
+                        break;
+                    }
+                    if (record == null) {
+                        if (complete) {
+                            this.skipCorruption(limit, "incomplete record");
+                        } else if (records.position() == 0) {
+                            this.chunk = new byte[(int) Math.min(2L * this.chunk.length, Integer.MAX_VALUE - 8)];
+                        }
+                        break;
+                    }
+                    if (!this.emit(record)) {
+                        return count;
+                    }
+                    this.readPosition += record.size();
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            if (count > 0) {
+                this.acknowledge();
+            }
+        }
+    }
+
+    // Note: the logs are forced to the storage device before they are emitted
+    private void syncWriteSegment(WriteMark currentMark) {
+        if (currentMark.equals(this.syncedMark)) {
+            return;
+        }
+        FileChannel channel;
+        synchronized (this.writeLock) {
+            channel = this.writeChannel;
+        }
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Note: the segment was forced when it was closed
+            } catch (IOException e) {
+                LOGGER.warn("Could not force spool segment to the storage device", e);
+            }
+        }
+        this.syncedMark = currentMark;
+    }
+
+    private FileChannel readChannel() throws IOException {
+        if (this.readChannel == null) {
+            this.readChannel = FileChannel.open(this.segmentPath(this.readSegmentId), StandardOpenOption.READ);
+        }
+        return this.readChannel;
+    }
+
+    private long readSegmentLength() throws IOException {
+        try {
+            return this.readChannel().size();
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private ByteBuffer readChunk(long limit) throws IOException {
+        FileChannel channel = this.readChannel();
+        int length = (int) Math.min(limit - this.readPosition, this.chunk.length);
+        channel.position(this.readPosition);
+        // Note: the stream is not closed, as it would close the channel
+        InputStream input = Channels.newInputStream(channel);
+        int read = input.readNBytes(this.chunk, 0, length);
+        return ByteBuffer.wrap(this.chunk, 0, read);
+    }
+
+    private void skipCorruption(long limit, String reason) {
+        LOGGER.warn("Skipping spool segment {} from position {} to {}: {}", this.readSegmentId, this.readPosition, limit, reason);
+        this.skippedCorruptions.inc();
+        this.readPosition = limit;
+    }
+
+    private void removeReadSegment() throws IOException {
+        Path path = this.segmentPath(this.readSegmentId);
+        this.closeQuietly(this.readChannel);
+        this.readChannel = null;
+        this.readSegmentId++;
+        this.readPosition = 0;
+        this.acknowledge();
+        if (Files.exists(path)) {
+            long length = Files.size(path);
+            Files.delete(path);
+            this.size.addAndGet(-length);
+        }
+    }
+
+    private void acknowledge() {
+        this.acknowledgement.putLong(0, this.readSegmentId);
+        this.acknowledgement.putLong(Long.BYTES, this.readPosition);
+        this.acknowledgement.force();
+    }
+
+    /**
+     * Emits the log, retrying with an increasing delay while the sink fails.
+     * @return false when the service stopped before the log could be emitted
+     */
+    private boolean emit(SpoolRecord record) {
+        long delay = INITIAL_RETRY_DELAY_MILLIS;
+        while (true) {
+            try {
+                this.sink.emit(record.tag(), record.message());
+                return true;
+            } catch (RuntimeException e) {
+                if (!this.isRunning()) {
+                    LOGGER.warn("Could not emit spooled log with tag {}, it will be replayed on the next start", record.tag(), e);
+                    return false;
+                }
+                this.retries.inc();
+                LOGGER.warn("Could not emit spooled log with tag {}, retrying in {} ms", record.tag(), delay, e);
+                this.pause(delay);
+                delay = Math.min(2 * delay, MAXIMUM_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0 && this.isRunning()) {
+            LockSupport.parkNanos(Math.min(remaining, RETRY_WAIT_NANOS));
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-spool";
+    }
+}
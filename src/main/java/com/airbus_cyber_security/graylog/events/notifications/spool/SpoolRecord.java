@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.spool;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * A log journaled in a spool segment: the length of the payload, its CRC32 checksum, then the payload
+ * made of the length of the tag, the tag and the log, encoded as UTF-8.
+ */
+record SpoolRecord(String tag, String message, int size) {
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    static final class CorruptedException extends Exception {
+
+        CorruptedException(String message) {
+            super(message);
+        }
+    }
+
+    static byte[] encode(String tag, String message) {
+        byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = Integer.BYTES + tagBytes.length + messageBytes.length;
+        byte[] record = new byte[HEADER_SIZE + payloadLength];
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putInt(payloadLength);
+        buffer.putInt(0);
+        buffer.putInt(tagBytes.length);
+        buffer.put(tagBytes);
+        buffer.put(messageBytes);
+        CRC32 checksum = new CRC32();
+        checksum.update(record, HEADER_SIZE, payloadLength);
+        buffer.putInt(Integer.BYTES, (int) checksum.getValue());
+        return record;
+    }
+
+    /**
+     * Reads the record at the position of the buffer, and moves the position after it.
+     * @return null when the buffer does not hold the whole record
+     */
+    static SpoolRecord read(ByteBuffer buffer, long maximumLength) throws CorruptedException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int payloadLength = buffer.getInt(start);
+        if (payloadLength < Integer.BYTES || payloadLength > maximumLength) {
+            throw new CorruptedException("invalid record length " + payloadLength);
+        }
+        if (buffer.remaining() - HEADER_SIZE < payloadLength) {
+            return null;
+        }
+        int payloadStart = start + HEADER_SIZE;
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.slice(payloadStart, payloadLength));
+        if ((int) checksum.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            throw new CorruptedException("checksum mismatch");
+        }
+        int tagLength = buffer.getInt(payloadStart);
+        int messageLength = payloadLength - Integer.BYTES - tagLength;
+        if (tagLength < 0 || messageLength < 0) {
+            throw new CorruptedException("invalid tag length " + tagLength);
+        }
+        String tag = decode(buffer, payloadStart + Integer.BYTES, tagLength);
+        String message = decode(buffer, payloadStart + Integer.BYTES + tagLength, messageLength);
+        buffer.position(payloadStart + payloadLength);
+        return new SpoolRecord(tag, message, HEADER_SIZE + payloadLength);
+    }
+
+    private static String decode(ByteBuffer buffer, int index, int length) {
+        return StandardCharsets.UTF_8.decode(buffer.slice(index, length)).toString();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.syslog;
+
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertSink;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import org.graylog2.plugin.Tools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Sends the logs of the notifications configured with a syslog receiver, from a dedicated thread.
+ * Pending logs are taken from the queue by batches, and the logs of a batch going to the same receiver are written together.
+ * Logs which cannot be queued or sent, including while waiting to reconnect to the receiver,
+ * are emitted with the sink of the plugin configuration instead.
+ * Logs too large for a UDP datagram are truncated. Connections unused for a while are closed.
+ */
+@Singleton
+public class SyslogAlertSink extends AbstractExecutionThreadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyslogAlertSink.class);
+
+    private static final int QUEUE_CAPACITY = 65536;
+
+    private static final int MAXIMUM_BATCH_SIZE = 1024;
+
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    // Note: largest UDP payload over IPv4
+    static final int MAXIMUM_DATAGRAM_SIZE = 65507;
+
+    private static final long IDLE_CONNECTION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final AlertSink fallbackSink;
+
+    private final LongSupplier clock;
+
+    private final String hostname;
+
+    private final BlockingQueue<PendingLog> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Map<SyslogDestination, SyslogConnection> connections = new HashMap<>();
+
+    private final Timer sendLatency;
+
+    private final Counter fallbacks;
+
+    private final Counter truncations;
+
+    private long nextIdleCheck;
+
+    private static final class PendingLog {
+
+        private final SyslogDestination destination;
+
+        private final String tag;
+
+        private final String message;
+
+        private final byte[] payload;
+
+        PendingLog(SyslogDestination destination, String tag, String message, byte[] payload) {
+            this.destination = destination;
+            this.tag = tag;
+            this.message = message;
+            this.payload = payload;
+        }
+    }
+
+    @Inject
+    public SyslogAlertSink(AlertSink fallbackSink, MetricRegistry metricRegistry) {
+        this(fallbackSink, metricRegistry, System::currentTimeMillis);
+    }
+
+    SyslogAlertSink(AlertSink fallbackSink, MetricRegistry metricRegistry, LongSupplier clock) {
+        this.fallbackSink = fallbackSink;
+        this.clock = clock;
+        this.hostname = Tools.getLocalHostname();
+        this.sendLatency = metricRegistry.timer(name(SyslogAlertSink.class, "send-latency"));
+        this.fallbacks = metricRegistry.counter(name(SyslogAlertSink.class, "fallbacks"));
+        this.truncations = metricRegistry.counter(name(SyslogAlertSink.class, "truncations"));
+        metricRegistry.gauge(name(SyslogAlertSink.class, "queue-depth"), () -> (Gauge<Integer>) this.queue::size);
+    }
+
+    public void emit(SyslogDestination destination, String tag, String message) {
+        byte[] payload = SyslogFormatter.format(Tools.nowUTC(), this.hostname, tag, message);
+        if (destination.protocol() == SyslogProtocol.UDP && payload.length > MAXIMUM_DATAGRAM_SIZE) {
+            this.truncations.inc();
+            payload = SyslogFormatter.truncate(payload, MAXIMUM_DATAGRAM_SIZE);
+        }
+        if (!this.isRunning() || !this.queue.offer(new PendingLog(destination, tag, message, payload))) {
+            this.fallBack(tag, message);
+        }
+    }
+
+    private void fallBack(String tag, String message) {
+        this.fallbacks.inc();
+        this.fallbackSink.emit(tag, message);
+    }
+
+    @Override
+    protected void run() throws InterruptedException {
+        List<PendingLog> batch = new ArrayList<>(MAXIMUM_BATCH_SIZE);
+        while (this.isRunning()) {
+            PendingLog first = this.queue.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            this.closeIdleConnections(this.clock.getAsLong());
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            this.queue.drainTo(batch, MAXIMUM_BATCH_SIZE - 1);
+            this.send(batch);
+            batch.clear();
+        }
+    }
+
+    @Override
+    protected void shutDown() {
+        List<PendingLog> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        this.send(remaining);
+        this.connections.values().forEach(SyslogConnection::close);
+        this.connections.clear();
+        LOGGER.debug("Syslog sink stopped, {} remaining logs sent", remaining.size());
+    }
+
+    private void closeIdleConnections(long now) {
+        if (now < this.nextIdleCheck) {
+            return;
+        }
+        this.nextIdleCheck = now + IDLE_CHECK_INTERVAL_MILLIS;
+        Iterator<SyslogConnection> iterator = this.connections.values().iterator();
+        while (iterator.hasNext()) {
+            SyslogConnection connection = iterator.next();
+            if (connection.isUnusedSince(now - IDLE_CONNECTION_MILLIS)) {
+                LOGGER.debug("Closing idle connection to syslog receiver {}", connection.destination());
+                connection.close();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void send(List<PendingLog> batch) {
+        Map<SyslogDestination, List<PendingLog>> logsPerDestination = new LinkedHashMap<>();
+        for (PendingLog log: batch) {
+            logsPerDestination.computeIfAbsent(log.destination, destination -> new ArrayList<>()).add(log);
+        }
+        for (Map.Entry<SyslogDestination, List<PendingLog>> entry: logsPerDestination.entrySet()) {
+            this.send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void send(SyslogDestination destination, List<PendingLog> logs) {
+        SyslogConnection connection = this.connections.computeIfAbsent(destination, SyslogConnection::new);
+        long now = this.clock.getAsLong();
+        connection.used(now);
+        if (!connection.isAvailable(now)) {
+            logs.forEach(log -> this.fallBack(log.tag, log.message));
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(logs.size());
+        for (PendingLog log: logs) {
+            payloads.add(log.payload);
+        }
+        try (Timer.Context ignored = this.sendLatency.time()) {
+            connection.send(payloads);
+        } catch (IOException e) {
+            // Note: with TCP, part of the logs may have been received already, they are then emitted twice
+            LOGGER.warn("Could not send {} logs to syslog receiver {}:{}, next attempt in {} ms", logs.size(),
+                    destination.host(), destination.port(), connection.backoffMillis(), e);
+            connection.failed(now);
+            logs.forEach(log -> this.fallBack(log.tag, log.message));
+        }
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-syslog-sink";
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.syslog;
+
+import org.graylog2.shared.SuppressForbidden;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Connection to a syslog receiver, only used from the sending thread.
+ * TCP frames are gathered in a buffer and written together. After a failure, the connection is not
+ * attempted again before a delay, doubled after each consecutive failure.
+ */
+final class SyslogConnection implements Closeable {
+
+    static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    static final long MAXIMUM_BACKOFF_MILLIS = 30_000;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final long WRITE_TIMEOUT_MILLIS = 5000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SyslogDestination destination;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private SocketChannel socketChannel;
+
+    private Selector selector;
+
+    private DatagramChannel datagramChannel;
+
+    private long backoffMillis = INITIAL_BACKOFF_MILLIS;
+
+    private long nextAttempt;
+
+    private long lastUse;
+
+    SyslogConnection(SyslogDestination destination) {
+        this.destination = destination;
+    }
+
+    SyslogDestination destination() {
+        return this.destination;
+    }
+
+    void used(long now) {
+        this.lastUse = now;
+    }
+
+    boolean isUnusedSince(long time) {
+        return this.lastUse < time;
+    }
+
+    boolean isAvailable(long now) {
+        return this.isOpen() || now >= this.nextAttempt;
+    }
+
+    long backoffMillis() {
+        return this.backoffMillis;
+    }
+
+    private boolean isOpen() {
+        return this.socketChannel != null || this.datagramChannel != null;
+    }
+
+    void send(List<byte[]> payloads) throws IOException {
+        if (!this.isOpen()) {
+            this.open();
+        }
+        if (this.destination.protocol() == SyslogProtocol.TCP) {
+            for (byte[] payload: payloads) {
+                this.appendFrame(payload);
+            }
+            this.flush();
+        } else {
+            for (byte[] payload: payloads) {
+                this.writeDatagram(ByteBuffer.wrap(payload));
+            }
+        }
+        this.backoffMillis = INITIAL_BACKOFF_MILLIS;
+    }
+
+    private void appendFrame(byte[] payload) throws IOException {
+        byte[] length = (payload.length + " ").getBytes(StandardCharsets.US_ASCII);
+        int frameLength = length.length + payload.length;
+        if (frameLength > this.buffer.remaining()) {
+            this.flush();
+        }
+        if (frameLength > this.buffer.capacity()) {
+            this.writeFully(ByteBuffer.wrap(length));
+            this.writeFully(ByteBuffer.wrap(payload));
+            return;
+        }
+        this.buffer.put(length).put(payload);
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        try {
+            this.writeFully(this.buffer);
+        } finally {
+            this.buffer.clear();
+        }
+    }
+
+    @SuppressForbidden("A datagram is written at once, or not at all")
+    private void writeDatagram(ByteBuffer datagram) throws IOException {
+        this.datagramChannel.write(datagram);
+    }
+
+    @SuppressForbidden("Partial writes are handled, with a timeout on the non-blocking channel")
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            if (this.socketChannel.write(source) == 0 && this.selector.select(WRITE_TIMEOUT_MILLIS) == 0) {
+                throw new IOException("Timed out writing to syslog receiver " + this.destination.host() + ":" + this.destination.port());
+            }
+            this.selector.selectedKeys().clear();
+        }
+    }
+
+    private void open() throws IOException {
+        InetSocketAddress address = new InetSocketAddress(this.destination.host(), this.destination.port());
+        if (address.isUnresolved()) {
+            throw new IOException("Could not resolve syslog receiver " + this.destination.host());
+        }
+        if (this.destination.protocol() == SyslogProtocol.TCP) {
+            SocketChannel channel = SocketChannel.open();
+            try {
+                channel.socket().connect(address, CONNECT_TIMEOUT_MILLIS);
+                channel.configureBlocking(false);
+                this.selector = Selector.open();
+                channel.register(this.selector, SelectionKey.OP_WRITE);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            this.socketChannel = channel;
+        } else {
+            DatagramChannel channel = DatagramChannel.open();
+            try {
+                channel.connect(address);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            this.datagramChannel = channel;
+        }
+    }
+
+    void failed(long now) {
+        this.close();
+        this.nextAttempt = now + this.backoffMillis;
+        this.backoffMillis = Math.min(this.backoffMillis * 2, MAXIMUM_BACKOFF_MILLIS);
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(this.socketChannel);
+        closeQuietly(this.selector);
+        closeQuietly(this.datagramChannel);
+        this.socketChannel = null;
+        this.selector = null;
+        this.datagramChannel = null;
+        this.buffer.clear();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Note: the connection is discarded anyway
+        }
+    }
+}
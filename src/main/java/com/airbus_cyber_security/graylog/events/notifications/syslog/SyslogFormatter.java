@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.syslog;
+
+import org.joda.time.DateTime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Frames the logs as RFC 5424 syslog messages, with the tag as application name.
+ */
+final class SyslogFormatter {
+
+    // Note: facility local0, severity notice
+    private static final int PRIORITY = 16 * 8 + 5;
+
+    private static final int MAXIMUM_HOSTNAME_LENGTH = 255;
+
+    private static final int MAXIMUM_APPLICATION_NAME_LENGTH = 48;
+
+    private static final String NIL_VALUE = "-";
+
+    private SyslogFormatter() {
+    }
+
+    static byte[] format(DateTime timestamp, String hostname, String tag, String message) {
+        String header = "<" + PRIORITY + ">1 " + timestamp + ' ' + headerField(hostname, MAXIMUM_HOSTNAME_LENGTH) + ' '
+                + headerField(tag, MAXIMUM_APPLICATION_NAME_LENGTH) + " - - - ";
+        return (header + message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cuts the message to the given number of bytes, without splitting a UTF-8 character.
+     */
+    static byte[] truncate(byte[] payload, int maximumLength) {
+        int length = maximumLength;
+        while (length > 0 && (payload[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(payload, length);
+    }
+
+    /**
+     * Header fields only hold printable US-ASCII characters, other characters are replaced.
+     */
+    private static String headerField(String value, int maximumLength) {
+        if (value == null || value.isEmpty()) {
+            return NIL_VALUE;
+        }
+        int length = Math.min(value.length(), maximumLength);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char character = value.charAt(i);
+            builder.append((character > 32 && character < 127) ? character : '_');
+        }
+        return builder.toString();
+    }
+}
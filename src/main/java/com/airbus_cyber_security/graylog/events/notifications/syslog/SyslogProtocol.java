@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.syslog;
+
+/**
+ * Transport of the logs sent to a syslog receiver.
+ */
+public enum SyslogProtocol {
+    /**
+     * With octet counting framing (RFC 6587).
+     */
+    TCP,
+    /**
+     * One log per datagram (RFC 5426).
+     */
+    UDP
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.collect.ImmutableList;
+import org.graylog2.plugin.MessageSummary;
+import org.joda.time.DateTime;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Messages of the backlog kept for the logs, with the number of messages left out by the backlog cap.
+ * The earliest timestamp is computed over all the messages, including the omitted ones.
+ */
+record Backlog(ImmutableList<MessageSummary> messages, long omittedCount, @Nullable DateTime earliestTimestamp) {
+
+    static Backlog of(ImmutableList<MessageSummary> messages) {
+        return new Backlog(messages, 0, earliestTimestampOf(messages));
+    }
+
+    boolean isEmpty() {
+        return this.messages.isEmpty();
+    }
+
+    int size() {
+        return this.messages.size();
+    }
+
+    @Nullable
+    private static DateTime earliestTimestampOf(ImmutableList<MessageSummary> messages) {
+        DateTime result = null;
+        for (MessageSummary message: messages) {
+            if (result == null || message.getTimestamp().isBefore(result)) {
+                result = message.getTimestamp();
+            }
+        }
+        return result;
+    }
+}
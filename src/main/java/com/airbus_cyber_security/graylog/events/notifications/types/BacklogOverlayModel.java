@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Template model made of the event model, shared by all the messages of an execution,
+ * with the backlog of the message being rendered laid over it.
+ * The event model is never modified, so it can be shared between threads.
+ */
+final class BacklogOverlayModel extends AbstractMap<String, Object> {
+
+    static final String FIELD_BACKLOG = "backlog";
+
+    private final Map<String, Object> eventModel;
+
+    private final Object backlog;
+
+    BacklogOverlayModel(Map<String, Object> eventModel, Object backlog) {
+        this.eventModel = eventModel;
+        this.backlog = backlog;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (FIELD_BACKLOG.equals(key)) {
+            return this.backlog;
+        }
+        return this.eventModel.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return FIELD_BACKLOG.equals(key) || this.eventModel.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Stream<Entry<String, Object>> eventEntries = eventModel.entrySet().stream()
+                        .filter(entry -> !FIELD_BACKLOG.equals(entry.getKey()));
+                return Stream.concat(Stream.of(new SimpleImmutableEntry<String, Object>(FIELD_BACKLOG, backlog)), eventEntries)
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return eventModel.containsKey(FIELD_BACKLOG) ? eventModel.size() : eventModel.size() + 1;
+            }
+        };
+    }
+}
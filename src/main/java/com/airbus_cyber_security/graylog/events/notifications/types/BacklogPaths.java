@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.floreysoft.jmte.template.Template;
+import com.floreysoft.jmte.template.VariableDescription;
+import com.google.common.collect.ImmutableSet;
+import org.graylog2.plugin.MessageSummary;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of the backlog messages a template refers to, found by analyzing the template once.
+ * Only these parts are converted into the template model of the messages, instead of every field of every message.
+ * Messages are referred to either by index (backlog[0].fields.src_ip) or through the variable of a loop over the backlog
+ * (${foreach backlog message}${message.source}${end}).
+ */
+final class BacklogPaths {
+
+    private static final String BACKLOG = BacklogOverlayModel.FIELD_BACKLOG;
+
+    private static final String FIELDS = "fields";
+
+    private static final Pattern FOREACH_BACKLOG = Pattern.compile("\\$\\{\\s*foreach\\s+" + BACKLOG + "\\s+([^\\s}]+)");
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]*)}");
+
+    private static final String FOREACH = "foreach";
+
+    private final Set<String> properties;
+
+    private final Set<String> fields;
+
+    private final boolean allFields;
+
+    private BacklogPaths(Set<String> properties, Set<String> fields, boolean allFields) {
+        this.properties = ImmutableSet.copyOf(properties);
+        this.fields = ImmutableSet.copyOf(fields);
+        this.allFields = allFields;
+    }
+
+    Set<String> properties() {
+        return this.properties;
+    }
+
+    Set<String> fields() {
+        return this.fields;
+    }
+
+    boolean hasAllFields() {
+        return this.allFields;
+    }
+
+    /**
+     * Finds the fields of the backlog messages which the template reads.
+     * @return null when the template may use whole messages, or refers to them in a way which is not understood:
+     * the whole messages must then be converted
+     */
+    @Nullable
+    static BacklogPaths analyze(Template template, String text) {
+        if (!template.getStaticErrors().isEmpty()) {
+            return null;
+        }
+        Set<String> aliases = new HashSet<>();
+        Matcher matcher = FOREACH_BACKLOG.matcher(text);
+        while (matcher.find()) {
+            aliases.add(matcher.group(1));
+        }
+        if (usesWholeAlias(text, aliases)) {
+            return null;
+        }
+        Set<String> properties = new HashSet<>();
+        Set<String> fields = new HashSet<>();
+        boolean allFields = false;
+        for (VariableDescription variable: template.getUsedVariableDescriptions()) {
+            boolean isTest = variable.context == VariableDescription.Context.IF;
+            if (variable.name.equals(BACKLOG)) {
+                if (isTest || variable.context == VariableDescription.Context.FOR_EACH) {
+                    continue;
+                }
+                return null;
+            }
+            String path = pathInMessage(variable.name, aliases);
+            if (path == null) {
+                continue;
+            }
+            if (path.isEmpty()) {
+                if (isTest) {
+                    continue;
+                }
+                return null;
+            }
+            String[] segments = path.split("\\.", 3);
+            properties.add(segments[0]);
+            if (segments[0].equals(FIELDS)) {
+                if (segments.length == 1) {
+                    allFields = true;
+                } else {
+                    fields.add(segments[1]);
+                }
+            }
+        }
+        return new BacklogPaths(properties, fields, allFields);
+    }
+
+    /**
+     * jmte does not report the loop variable when it is used by itself (${message}), so expressions are searched for it.
+     */
+    private static boolean usesWholeAlias(String text, Set<String> aliases) {
+        if (aliases.isEmpty()) {
+            return false;
+        }
+        List<Pattern> wholeAliases = new ArrayList<>();
+        for (String alias: aliases) {
+            wholeAliases.add(Pattern.compile("(?<![\\w.])" + Pattern.quote(alias) + "(?![\\w.])"));
+        }
+        Matcher matcher = EXPRESSION.matcher(text);
+        while (matcher.find()) {
+            String expression = matcher.group(1).trim();
+            if (expression.startsWith(FOREACH)) {
+                continue;
+            }
+            for (Pattern wholeAlias: wholeAliases) {
+                if (wholeAlias.matcher(expression).find()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the path inside the message the variable refers to, empty for the whole message, null when it is not a message
+     */
+    @Nullable
+    private static String pathInMessage(String name, Set<String> aliases) {
+        if (name.startsWith(BACKLOG + "[")) {
+            int end = name.indexOf(']');
+            if (end < 0 || end == name.length() - 1) {
+                return "";
+            }
+            if (name.charAt(end + 1) != '.') {
+                // Note: not understood, considered as the whole message
+                return "";
+            }
+            return name.substring(end + 2);
+        }
+        if (name.startsWith(BACKLOG + ".")) {
+            return "";
+        }
+        for (String alias: aliases) {
+            if (name.equals(alias)) {
+                return "";
+            }
+            if (name.startsWith(alias + ".")) {
+                return name.substring(alias.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param converter converts a value the way it is converted in the whole message model
+     */
+    Map<String, Object> project(MessageSummary message, UnaryOperator<Object> converter) {
+        Map<String, Object> result = new HashMap<>();
+        for (String property: this.properties) {
+            if (property.equals(FIELDS)) {
+                result.put(FIELDS, this.projectFields(message, converter));
+                continue;
+            }
+            Object value = switch (property) {
+                case "id" -> message.getId();
+                case "index" -> message.getIndex();
+                case "message" -> message.getMessage();
+                case "source" -> message.getSource();
+                case "timestamp" -> message.getTimestamp();
+                case "stream_ids" -> message.getStreamIds();
+                default -> null;
+            };
+            if (value != null) {
+                result.put(property, convert(value, converter));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> projectFields(MessageSummary message, UnaryOperator<Object> converter) {
+        Map<String, Object> messageFields = message.getFields();
+        if (this.allFields) {
+            return (Map<String, Object>) converter.apply(messageFields);
+        }
+        Map<String, Object> result = new HashMap<>();
+        for (String field: this.fields) {
+            Object value = messageFields.get(field);
+            if (value != null) {
+                result.put(field, convert(value, converter));
+            }
+        }
+        return result;
+    }
+
+    private static Object convert(Object value, UnaryOperator<Object> converter) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        return converter.apply(value);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.collect.ImmutableList;
+import org.graylog.events.event.Event;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationService;
+import org.graylog.events.processor.EventDefinitionDto;
+import org.graylog.events.processor.EventProcessor;
+import org.graylog.events.processor.EventProcessorException;
+import org.graylog2.plugin.MessageSummary;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Fetches the backlog of an event.
+ * When the backlog is capped, the messages are consumed page by page as the event processor queries them:
+ * only the first messages are kept, the others are just counted.
+ */
+@Singleton
+public class BacklogSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BacklogSource.class);
+
+    private final EventNotificationService notificationService;
+
+    private final Map<String, EventProcessor.Factory> eventProcessorFactories;
+
+    @Inject
+    public BacklogSource(EventNotificationService notificationService, Map<String, EventProcessor.Factory> eventProcessorFactories) {
+        this.notificationService = notificationService;
+        this.eventProcessorFactories = eventProcessorFactories;
+    }
+
+    /**
+     * @param cap maximum number of messages kept, 0 to keep the whole backlog
+     */
+    Backlog fetch(EventNotificationContext context, int cap) {
+        if (cap <= 0) {
+            return Backlog.of(this.notificationService.getBacklogForEvent(context));
+        }
+        EventDto event = context.event();
+        EventProcessor.Factory<?> factory = this.eventProcessorFactories.get(event.eventDefinitionType());
+        // Note: without its definition, the event backlog is left to Graylog and capped once fetched
+        if (factory == null || context.eventDefinition().isEmpty()) {
+            return capInMemory(this.notificationService.getBacklogForEvent(context), cap);
+        }
+        EventDefinitionDto definition = context.eventDefinition().get();
+        // Note: same backlog size as the one chosen by Graylog in EventNotificationService
+        long backlogSize = definition.notificationSettings().backlogSize();
+        if (backlogSize <= 0) {
+            return Backlog.of(ImmutableList.of());
+        }
+        CappedCollector collector = new CappedCollector(cap);
+        try {
+            factory.create(definition).sourceMessagesForEvent(Event.fromDto(event), collector, backlogSize);
+        } catch (EventProcessorException e) {
+            LOGGER.error("Failed to query backlog messages for event {}", event.id(), e);
+        }
+        return collector.build();
+    }
+
+    private static Backlog capInMemory(ImmutableList<MessageSummary> messages, int cap) {
+        CappedCollector collector = new CappedCollector(cap);
+        collector.accept(messages);
+        return collector.build();
+    }
+
+    private static final class CappedCollector implements Consumer<List<MessageSummary>> {
+
+        private final int cap;
+
+        private final ImmutableList.Builder<MessageSummary> kept = ImmutableList.builder();
+
+        private int keptCount;
+
+        private long omittedCount;
+
+        private DateTime earliestTimestamp;
+
+        CappedCollector(int cap) {
+            this.cap = cap;
+        }
+
+        @Override
+        public void accept(List<MessageSummary> page) {
+            for (MessageSummary message: page) {
+                if (this.earliestTimestamp == null || message.getTimestamp().isBefore(this.earliestTimestamp)) {
+                    this.earliestTimestamp = message.getTimestamp();
+                }
+                if (this.keptCount < this.cap) {
+                    this.kept.add(message);
+                    this.keptCount++;
+                } else {
+                    this.omittedCount++;
+                }
+            }
+        }
+
+        Backlog build() {
+            return new Backlog(this.kept.build(), this.omittedCount, this.earliestTimestamp);
+        }
+    }
+}
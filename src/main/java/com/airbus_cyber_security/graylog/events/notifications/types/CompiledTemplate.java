@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.floreysoft.jmte.Engine;
+import com.floreysoft.jmte.template.Template;
+
+import jakarta.annotation.Nullable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A log body template, with the line break substitution already applied, parsed once and reused for every message.
+ * Note: jmte templates hold their parsing state while transforming (the transform method is synchronized),
+ * so parsed instances are pooled to let concurrent executions of the same notification render without contention.
+ * The template is also analyzed once to find the parts of the backlog messages it uses (see {@link BacklogPaths}).
+ */
+public class CompiledTemplate {
+
+    private final Engine engine;
+
+    private final String logBody;
+
+    private final String separator;
+
+    private final String template;
+
+    private final Queue<Template> instances = new ConcurrentLinkedQueue<>();
+
+    private final BacklogPaths backlogPaths;
+
+    CompiledTemplate(Engine engine, String logBody, String separator, String template) {
+        this.engine = engine;
+        this.logBody = logBody;
+        this.separator = separator;
+        this.template = template;
+        Template instance = engine.getTemplate(template);
+        this.backlogPaths = BacklogPaths.analyze(instance, template);
+        this.instances.add(instance);
+    }
+
+    boolean isCompiledFrom(String logBody, String separator) {
+        return this.logBody.equals(logBody) && this.separator.equals(separator);
+    }
+
+    /**
+     * Returns the paths of the backlog messages read by the template.
+     * @return null when the whole backlog messages must be converted into the template model
+     */
+    @Nullable
+    BacklogPaths backlogPaths() {
+        return this.backlogPaths;
+    }
+
+    public String getTemplate() {
+        return this.template;
+    }
+
+    public String transform(Map<String, Object> model) {
+        Template instance = this.instances.poll();
+        if (instance == null) {
+            instance = this.engine.getTemplate(this.template);
+        }
+        try {
+            return instance.transform(model, Locale.getDefault());
+        } finally {
+            this.instances.offer(instance);
+        }
+    }
+}
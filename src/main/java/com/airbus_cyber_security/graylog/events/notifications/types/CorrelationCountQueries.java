@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import org.graylog.events.processor.EventProcessorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accessors to the search queries of a CorrelationCountProcessorConfig.
+ * Reflection is used to avoid a dependency with graylog-plugin-correlation-count. The accessors are resolved once
+ * per configuration class: if its signature changed, the error is logged at that time and the queries are ignored.
+ */
+final class CorrelationCountQueries {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CorrelationCountQueries.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(String.class, Object.class);
+
+    private static final ClassValue<CorrelationCountQueries> QUERIES = new ClassValue<>() {
+        @Override
+        protected CorrelationCountQueries computeValue(Class<?> configClass) {
+            return resolve(configClass);
+        }
+    };
+
+    private static final CorrelationCountQueries UNRESOLVED = new CorrelationCountQueries(null, null);
+
+    private final MethodHandle searchQuery;
+
+    private final MethodHandle additionalSearchQuery;
+
+    private CorrelationCountQueries(MethodHandle searchQuery, MethodHandle additionalSearchQuery) {
+        this.searchQuery = searchQuery;
+        this.additionalSearchQuery = additionalSearchQuery;
+    }
+
+    static CorrelationCountQueries of(Class<?> configClass) {
+        return QUERIES.get(configClass);
+    }
+
+    private static CorrelationCountQueries resolve(Class<?> configClass) {
+        // Note: the configuration is an AutoValue implementation, accessors are declared by its parent class
+        Class<?> correlationCountClass = configClass.getSuperclass();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle searchQuery = lookup.unreflect(correlationCountClass.getMethod("searchQuery")).asType(GETTER_TYPE);
+            MethodHandle additionalSearchQuery = lookup.unreflect(correlationCountClass.getMethod("additionalSearchQuery")).asType(GETTER_TYPE);
+            return new CorrelationCountQueries(searchQuery, additionalSearchQuery);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.error("Unable to access the search queries of {}, they will not be part of logging_alert.messages_url", correlationCountClass, e);
+            return UNRESOLVED;
+        }
+    }
+
+    List<String> get(EventProcessorConfig config) {
+        List<String> queries = new ArrayList<>();
+        if (this.searchQuery == null) {
+            return queries;
+        }
+        try {
+            queries.add((String) this.searchQuery.invokeExact((Object) config));
+            queries.add((String) this.additionalSearchQuery.invokeExact((Object) config));
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.collect.ImmutableList;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.processor.EventDefinitionDto;
+import org.graylog2.plugin.MessageSummary;
+
+import jakarta.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The fields of a JSON log, each one resolved once into a direct accessor to its value.
+ * Available fields are:
+ * <ul>
+ *     <li>logging_alert.id, logging_alert.title, logging_alert.severity, logging_alert.detect_time, logging_alert.messages_url,
+ *     logging_alert.omitted_messages</li>
+ *     <li>event_definition_id, event_definition_type, event_definition_title, event_definition_description</li>
+ *     <li>event.id, event.message, event.source, event.key, event.priority, event.timestamp, event.timerange_start,
+ *     event.timerange_end, event.fields.&lt;name&gt;, event.group_by_fields.&lt;name&gt;</li>
+ *     <li>message.id, message.index, message.message, message.source, message.timestamp, message.fields.&lt;name&gt;
+ *     (the first message of the backlog for a single message notification)</li>
+ * </ul>
+ */
+final class JsonLayout {
+
+    private static final String EVENT_FIELDS = "event.fields.";
+    private static final String EVENT_GROUP_BY_FIELDS = "event.group_by_fields.";
+    private static final String MESSAGE_FIELDS = "message.fields.";
+
+    record Source(EventNotificationContext context, LoggingAlertFields alertFields, @Nullable MessageSummary message) {}
+
+    interface FieldReader {
+        @Nullable
+        Object read(Source source);
+    }
+
+    record Field(String name, FieldReader reader) {}
+
+    private final List<String> names;
+
+    private final List<Field> fields;
+
+    private JsonLayout(List<String> names, List<Field> fields) {
+        this.names = names;
+        this.fields = fields;
+    }
+
+    boolean isCompiledFrom(List<String> names) {
+        return this.names.equals(names);
+    }
+
+    List<Field> fields() {
+        return this.fields;
+    }
+
+    static JsonLayout compile(List<String> names) {
+        ImmutableList.Builder<Field> fields = ImmutableList.builder();
+        for (String name: names) {
+            FieldReader reader = buildReader(name);
+            if (reader != null) {
+                fields.add(new Field(name, reader));
+            }
+        }
+        return new JsonLayout(ImmutableList.copyOf(names), fields.build());
+    }
+
+    static boolean isValid(String name) {
+        return buildReader(name) != null;
+    }
+
+    @Nullable
+    private static FieldReader buildReader(String name) {
+        if (name.equals(EVENT_FIELDS) || name.equals(EVENT_GROUP_BY_FIELDS) || name.equals(MESSAGE_FIELDS)) {
+            return null;
+        }
+        if (name.startsWith(EVENT_FIELDS)) {
+            String key = name.substring(EVENT_FIELDS.length());
+            return source -> source.context().event().fields().get(key);
+        }
+        if (name.startsWith(EVENT_GROUP_BY_FIELDS)) {
+            String key = name.substring(EVENT_GROUP_BY_FIELDS.length());
+            return source -> source.context().event().groupByFields().get(key);
+        }
+        if (name.startsWith(MESSAGE_FIELDS)) {
+            String key = name.substring(MESSAGE_FIELDS.length());
+            return source -> (source.message() == null) ? null : source.message().getField(key);
+        }
+        return switch (name) {
+            case "logging_alert.id" -> source -> source.alertFields().getId();
+            case "logging_alert.title" -> source -> source.alertFields().getTitle();
+            case "logging_alert.severity" -> source -> source.alertFields().getSeverity();
+            case "logging_alert.detect_time" -> source -> source.alertFields().getDetect_time();
+            case "logging_alert.messages_url" -> source -> source.alertFields().getMessages_url();
+            case "logging_alert.omitted_messages" -> source -> source.alertFields().getOmitted_messages();
+            case "event_definition_id" -> source -> definition(source).map(EventDefinitionDto::id).orElse(null);
+            case "event_definition_type" -> source -> definition(source).map(definition -> definition.config().type()).orElse(null);
+            case "event_definition_title" -> source -> definition(source).map(EventDefinitionDto::title).orElse(null);
+            case "event_definition_description" -> source -> definition(source).map(EventDefinitionDto::description).orElse(null);
+            case "event.id" -> source -> event(source).id();
+            case "event.message" -> source -> event(source).message();
+            case "event.source" -> source -> event(source).source();
+            case "event.key" -> source -> event(source).key();
+            case "event.priority" -> source -> event(source).priority();
+            case "event.timestamp" -> source -> event(source).eventTimestamp();
+            case "event.timerange_start" -> source -> event(source).timerangeStart().orElse(null);
+            case "event.timerange_end" -> source -> event(source).timerangeEnd().orElse(null);
+            case "message.id" -> source -> (source.message() == null) ? null : source.message().getId();
+            case "message.index" -> source -> (source.message() == null) ? null : source.message().getIndex();
+            case "message.message" -> source -> (source.message() == null) ? null : source.message().getMessage();
+            case "message.source" -> source -> (source.message() == null) ? null : source.message().getSource();
+            case "message.timestamp" -> source -> (source.message() == null) ? null : source.message().getTimestamp();
+            default -> null;
+        };
+    }
+
+    private static EventDto event(Source source) {
+        return source.context().event();
+    }
+
+    private static Optional<EventDefinitionDto> definition(Source source) {
+        return source.context().eventDefinition();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes the logs of the JSON output format directly from the event and messages, without building a template model.
+ * Each thread writes into its own buffer, which is kept from one log to the next.
+ */
+@Singleton
+public class JsonLogEncoder {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 1024;
+
+    private static final int MAXIMUM_KEPT_BUFFER_CAPACITY = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ThreadLocal<StringBuilderWriter> buffers = ThreadLocal.withInitial(StringBuilderWriter::new);
+
+    private static final class StringBuilderWriter extends Writer {
+
+        private StringBuilder builder = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+
+        void reset() {
+            if (this.builder.capacity() > MAXIMUM_KEPT_BUFFER_CAPACITY) {
+                this.builder = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            } else {
+                this.builder.setLength(0);
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            this.builder.append(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String value, int offset, int length) {
+            this.builder.append(value, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return this.builder.toString();
+        }
+    }
+
+    String encode(JsonLayout layout, JsonLayout.Source source) {
+        StringBuilderWriter buffer = this.buffers.get();
+        buffer.reset();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+            generator.writeStartObject();
+            for (JsonLayout.Field field: layout.fields()) {
+                generator.writeFieldName(field.name());
+                writeValue(generator, field.reader().read(source));
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // Note: should not happen, the buffer is in memory
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Adds a number field at the end of a log written by {@link #encode}.
+     */
+    public String appendField(String log, String name, long value) {
+        StringBuilder result = new StringBuilder(log.length() + name.length() + 24);
+        // Note: the log is an object, its closing brace is written again after the new field
+        result.append(log, 0, log.length() - 1);
+        if (log.length() > 2) {
+            result.append(',');
+        }
+        result.append('"').append(JsonStringEncoder.getInstance().quoteAsString(name)).append("\":").append(value).append('}');
+        return result.toString();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String string) {
+            generator.writeString(string);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            generator.writeNumber(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Collection<?> collection) {
+            generator.writeStartArray();
+            for (Object element: collection) {
+                writeValue(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -16,22 +16,42 @@
  */
 package com.airbus_cyber_security.graylog.events.notifications.types;
 
+import com.airbus_cyber_security.graylog.events.config.FullQueuePolicy;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
 import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.notifications.coalescing.EventCoalescer;
+import com.airbus_cyber_security.graylog.events.notifications.dedup.AlertDeduplicator;
+import com.airbus_cyber_security.graylog.events.notifications.dedup.AlertFingerprint;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.execution.OffloadExecutor;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LatencyHistogram;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LoggingAlertMetrics;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.NotificationStatistics;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterOverflowBudget;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.OverflowDigest;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.TagRateLimiter;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogDestination;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import org.graylog.events.event.EventDto;
 import org.graylog.events.notifications.EventNotification;
 import org.graylog.events.notifications.EventNotificationContext;
-import org.graylog.events.notifications.EventNotificationService;
+import org.graylog.events.notifications.EventNotificationException;
 import org.graylog2.plugin.MessageSummary;
-import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.graylog2.plugin.Tools;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This is the plugin. Your class should implement one of the existing plugin
@@ -42,71 +62,334 @@ public class LoggingAlert implements EventNotification {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LoggingAlert.class);
 
-    private static final String SEPARATOR_TEMPLATE = "\n";
+    private static final JsonLayout OMITTED_MESSAGES_LAYOUT = JsonLayout.compile(List.of("logging_alert.id", "logging_alert.omitted_messages"));
 
-    private final EventNotificationService notificationCallbackService;
+    private final BacklogSource backlogSource;
 
-    private final ClusterConfigService clusterConfigService;
+    private final LoggingAlertConfigCache configCache;
 
     private final MessageBodyBuilder messageBodyBuilder;
 
+    private final TemplateCache templateCache;
+
+    private final AlertEmitter alertEmitter;
+
+    private final ParallelMessageRenderer parallelRenderer;
+
+    private final TagRateLimiter rateLimiter;
+
+    private final ClusterOverflowBudget clusterBudget;
+
+    private final OverflowDigest overflowDigest;
+
+    private final AlertDeduplicator deduplicator;
+
+    private final LoggingAlertMetrics metrics;
+
+    private final NotificationStatistics statistics;
+
+    private final JsonLogEncoder jsonEncoder;
+
+    private final OffloadExecutor offloadExecutor;
+
+    private final EventCoalescer coalescer;
+
+    /**
+     * What the deduplication fingerprint of the logs of an event is computed from (see {@link AlertFingerprint}).
+     */
+    private record DedupModel(Map<String, Object> eventModel, List<String> eventValues) {}
+
     public interface Factory extends EventNotification.Factory {
         @Override
         LoggingAlert create();
     }
 
     @Inject
-    public LoggingAlert(ClusterConfigService clusterConfigService, EventNotificationService notificationCallbackService,
-                        MessageBodyBuilder messageBodyBuilder) {
-        this.notificationCallbackService = notificationCallbackService;
-        this.clusterConfigService = clusterConfigService;
+    public LoggingAlert(LoggingAlertConfigCache configCache, BacklogSource backlogSource,
+                        MessageBodyBuilder messageBodyBuilder, TemplateCache templateCache, AlertEmitter alertEmitter,
+                        ParallelMessageRenderer parallelRenderer, TagRateLimiter rateLimiter,
+                        ClusterOverflowBudget clusterBudget, OverflowDigest overflowDigest, AlertDeduplicator deduplicator,
+                        LoggingAlertMetrics metrics, NotificationStatistics statistics, JsonLogEncoder jsonEncoder,
+                        OffloadExecutor offloadExecutor, EventCoalescer coalescer) {
+        this.backlogSource = backlogSource;
+        this.configCache = configCache;
         this.messageBodyBuilder = messageBodyBuilder;
+        this.templateCache = templateCache;
+        this.alertEmitter = alertEmitter;
+        this.parallelRenderer = parallelRenderer;
+        this.rateLimiter = rateLimiter;
+        this.clusterBudget = clusterBudget;
+        this.overflowDigest = overflowDigest;
+        this.deduplicator = deduplicator;
+        this.metrics = metrics;
+        this.statistics = statistics;
+        this.jsonEncoder = jsonEncoder;
+        this.offloadExecutor = offloadExecutor;
+        this.coalescer = coalescer;
     }
 
+    /**
+     * Note: a coalesced or offloaded notification is not retried by the job scheduler when it fails, the failure is only logged.
+     */
     @Override
-    public void execute(EventNotificationContext context) {
-        LOGGER.debug("Start of execute...");
-        LoggingAlertConfig generalConfig = this.clusterConfigService.getOrDefault(LoggingAlertConfig.class, LoggingAlertConfig.createDefault());
+    public void execute(EventNotificationContext context) throws EventNotificationException {
+        this.metrics.notifications().mark();
         LoggingNotificationConfig config = (LoggingNotificationConfig) context.notificationConfig();
-        ImmutableList<MessageSummary> backlog = this.notificationCallbackService.getBacklogForEvent(context);
-        String logTemplate = config.logBody().replace(SEPARATOR_TEMPLATE, generalConfig.accessSeparator());
+        if (config.coalesceWindow() > 0 && this.coalescer.add(context, config.coalesceWindow(), config.coalesceMaxEvents(),
+                contexts -> this.dispatch(context.notificationId(), contexts))) {
+            LOGGER.debug("Event buffered to be coalesced with the next events of its definition...");
+            return;
+        }
+        this.dispatch(context.notificationId(), List.of(context));
+    }
 
-        EventDto event = context.event();
-        DateTime date = event.eventTimestamp();
+    private void dispatch(String notificationId, List<EventNotificationContext> contexts) throws EventNotificationException {
+        if (canOffload(this.configCache.get().config())
+                && this.offloadExecutor.trySubmit(notificationId, () -> this.executeMeasured(contexts))) {
+            LOGGER.debug("Execution offloaded to a virtual thread...");
+            return;
+        }
+        this.executeMeasured(contexts);
+    }
+
+    /**
+     * A notification which should fail when the asynchronous emission queue is full is not offloaded,
+     * so that its failure reaches the job scheduler, which retries it.
+     */
+    private static boolean canOffload(LoggingAlertConfig config) {
+        return config.accessOffloadExecution()
+                && !(config.accessAsyncEmission() && config.accessAsyncFullQueuePolicy() == FullQueuePolicy.FAIL);
+    }
+
+    /**
+     * The events of a batch share the plugin configuration and the event definition part of the template model.
+     * Each one is still logged with its own identifier, and a failing event does not prevent the next ones from being logged.
+     */
+    private void executeMeasured(List<EventNotificationContext> contexts) throws EventNotificationException {
+        LOGGER.debug("Start of execute...");
+        EventNotificationException failure = null;
+        try (Timer.Context ignored = this.metrics.execution().time()) {
+            LoggingAlertConfigCache.Snapshot generalConfig = this.configCache.get();
+            Supplier<Map<String, Object>> definitionModel = Suppliers.memoize(() -> this.messageBodyBuilder.buildDefinitionModel(contexts.get(0)));
+            for (EventNotificationContext context: contexts) {
+                try {
+                    this.executeTimed(generalConfig, definitionModel, context);
+                } catch (EventNotificationException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        LOGGER.debug("End of execute...");
+    }
+
+    private void executeTimed(LoggingAlertConfigCache.Snapshot generalConfig, Supplier<Map<String, Object>> definitionModel,
+                              EventNotificationContext context) throws EventNotificationException {
+        LoggingNotificationConfig config = (LoggingNotificationConfig) context.notificationConfig();
+        Backlog fetchedBacklog = this.backlogSource.fetch(context, generalConfig.config().accessBacklogCap());
+        ImmutableList<MessageSummary> backlog = fetchedBacklog.messages();
+        long omittedCount = fetchedBacklog.omittedCount();
+        this.metrics.backlogSize().update(backlog.size());
+        NotificationStatistics.Entry statistics = this.statistics.get(context.notificationId());
+        statistics.executions().increment();
+        statistics.largestBacklog().record(backlog.size() + omittedCount);
+        DateTime date = this.getDetectTime(context.event(), fetchedBacklog);
 
-        for (MessageSummary messageSummary: backlog) {
-            if (messageSummary.getTimestamp().isBefore(date)) {
-                date = messageSummary.getTimestamp();
+        Map<String, Object> eventModel;
+        Function<MessageSummary, String> renderMessage;
+        Supplier<String> renderBacklog;
+        Supplier<String> renderOmitted;
+        LoggingAlertFields alertFields = null;
+        if (config.outputFormat() == OutputFormat.JSON) {
+            // Note: the template model is only needed to resolve the deduplication fields
+            JsonLayout layout = this.templateCache.getJsonLayout(context.notificationId(), config.jsonFields());
+            alertFields = this.messageBodyBuilder.buildLoggingAlertFields(context, date, omittedCount);
+            LoggingAlertFields jsonAlertFields = alertFields;
+            eventModel = config.dedupFields().isEmpty() ? Map.of()
+                    : this.messageBodyBuilder.buildEventModel(definitionModel.get(), context, date, omittedCount);
+            renderMessage = message -> this.encodeJson(layout, context, jsonAlertFields, message);
+            renderBacklog = () -> this.encodeJson(layout, context, jsonAlertFields, backlog.isEmpty() ? null : backlog.get(0));
+            renderOmitted = () -> this.encodeJson(OMITTED_MESSAGES_LAYOUT, context, jsonAlertFields, null);
+        } else {
+            CompiledTemplate logTemplate = this.templateCache.get(context.notificationId(), config.logBody(), generalConfig.separator());
+            eventModel = this.messageBodyBuilder.buildEventModel(definitionModel.get(), context, date, omittedCount);
+            if (eventModel.get("logging_alert") instanceof LoggingAlertFields modelAlertFields) {
+                alertFields = modelAlertFields;
             }
+            renderMessage = message -> this.messageBodyBuilder.buildMessageBodyForMessage(logTemplate, eventModel, message);
+            renderBacklog = () -> this.messageBodyBuilder.buildMessageBodyForBacklog(logTemplate, eventModel, backlog);
+            renderOmitted = () -> "type: omitted_messages" + generalConfig.separator()
+                    + "id: " + this.messageBodyBuilder.getAlertIdentifier(context) + generalConfig.separator()
+                    + "omitted_messages: " + omittedCount;
+        }
+        Function<MessageSummary, String> messageRenderer = timed(statistics.render(), renderMessage);
+        Supplier<String> backlogRenderer = timed(statistics.render(), renderBacklog);
+        Supplier<String> omittedRenderer = timed(statistics.render(), renderOmitted);
+        List<String> eventValues = List.of();
+        if (config.dedupWindow() > 0 && config.dedupFields().isEmpty() && alertFields != null) {
+            eventValues = getEventValues(alertFields);
         }
+        DedupModel dedupModel = new DedupModel(eventModel, eventValues);
 
-        Collection<String> listMessagesToLog = new ArrayList<>();
         if (backlog.isEmpty() || config.singleMessage()) {
-            LOGGER.debug("Add log to list message for empty backlog or single message...");
-            String messageToLog = this.messageBodyBuilder.buildMessageBodyForBacklog(logTemplate, context, date, backlog);
-            listMessagesToLog.add(messageToLog);
+            LOGGER.debug("Log message for empty backlog or single message...");
+            this.log(generalConfig, config, context, dedupModel, 0, null, backlogRenderer);
+        } else if (isParallelRendering(generalConfig, backlog)) {
+            LOGGER.debug("Log one message for each message of the backlog, rendered on several threads...");
+            // Note: messages past the overflow limit are not rendered at all when they go to the digest
+            List<MessageSummary> messagesToRender = backlog;
+            if (generalConfig.config().accessOverflowDigest() && generalConfig.hasOverflowLimit() && backlog.size() > generalConfig.limitOverflow()) {
+                messagesToRender = backlog.subList(0, generalConfig.limitOverflow());
+            }
+            this.parallelRenderer.render(messagesToRender, messageRenderer,
+                    (index, messageToLog) -> this.log(generalConfig, config, context, dedupModel, index, backlog.get(index), () -> messageToLog));
+            for (MessageSummary message: backlog.subList(messagesToRender.size(), backlog.size())) {
+                this.overflowDigest.add(context, message, getSyslogDestination(config));
+            }
+            this.metrics.overflowed(config.alertTag()).inc(backlog.size() - messagesToRender.size());
+            statistics.overflowed().add(backlog.size() - messagesToRender.size());
         } else {
-            LOGGER.debug("Add log to list message for backlog...");
+            LOGGER.debug("Log one message for each message of the backlog...");
+            // Note: each message is emitted as soon as it is rendered, so that memory does not grow with the size of the backlog
+            int index = 0;
             for (MessageSummary message: backlog) {
-                String messageToLog = this.messageBodyBuilder.buildMessageBodyForMessage(logTemplate, context, date, message);
-                listMessagesToLog.add(messageToLog);
+                this.log(generalConfig, config, context, dedupModel, index, message, () -> messageRenderer.apply(message));
+                index++;
             }
         }
 
-        Logger localLogger = LoggerFactory.getLogger(config.alertTag());
-        Logger loggerOverflow = LoggerFactory.getLogger(generalConfig.accessOverflowTag());
+        if (omittedCount > 0) {
+            LOGGER.debug("Log the number of messages omitted from the backlog...");
+            this.emit(generalConfig, statistics, getSyslogDestination(config), config.alertTag(), omittedRenderer.get());
+        }
+    }
+
+    private String encodeJson(JsonLayout layout, EventNotificationContext context, LoggingAlertFields alertFields, @Nullable MessageSummary message) {
+        try (Timer.Context ignored = this.metrics.render().time()) {
+            return this.jsonEncoder.encode(layout, new JsonLayout.Source(context, alertFields, message));
+        }
+    }
 
-        /* Log each messages */
-        int iter = 0;
-        for (String message: listMessagesToLog) {
-            if (generalConfig.accessLimitOverflow() <= 0 || iter < generalConfig.accessLimitOverflow()) {
-                localLogger.info(message);
-            } else {
-                loggerOverflow.info(message);
+    private static boolean isParallelRendering(LoggingAlertConfigCache.Snapshot generalConfig, ImmutableList<MessageSummary> backlog) {
+        int threshold = generalConfig.config().accessParallelRenderingThreshold();
+        return threshold > 0 && backlog.size() >= threshold;
+    }
+
+    /**
+     * The detect time is the timestamp of the earliest message that triggered the alert, omitted messages included.
+     */
+    private DateTime getDetectTime(EventDto event, Backlog backlog) {
+        DateTime earliestTimestamp = backlog.earliestTimestamp();
+        if (earliestTimestamp != null && earliestTimestamp.isBefore(event.eventTimestamp())) {
+            return earliestTimestamp;
+        }
+        return event.eventTimestamp();
+    }
+
+    /**
+     * The log is only rendered when it is emitted: overflowed messages only go to the digest when it is enabled.
+     * Repeated logs are suppressed before they consume any overflow quota.
+     */
+    private void log(LoggingAlertConfigCache.Snapshot generalConfig, LoggingNotificationConfig config, EventNotificationContext context,
+                     DedupModel dedupModel, int index, @Nullable MessageSummary message, Supplier<String> messageToLog) throws EventNotificationException {
+        AlertDeduplicator.Window window = null;
+        if (config.dedupWindow() > 0) {
+            messageToLog = Suppliers.memoize(messageToLog::get);
+            String fingerprint = AlertFingerprint.of(config.dedupFields(), dedupModel.eventModel(), message, messageToLog,
+                    dedupModel.eventValues());
+            window = this.deduplicator.open(context.notificationId(), fingerprint, config.dedupWindow(), Tools.nowUTC());
+            if (window == null) {
+                return;
+            }
+        }
+        NotificationStatistics.Entry statistics = this.statistics.get(context.notificationId());
+        String tag = config.alertTag();
+        boolean overflow = this.isOverflow(generalConfig, config, index);
+        if (overflow) {
+            this.metrics.overflowed(config.alertTag()).inc();
+            statistics.overflowed().increment();
+            if (generalConfig.config().accessOverflowDigest()) {
+                this.overflowDigest.add(context, message, getSyslogDestination(config));
+                return;
             }
-            iter++;
+            tag = generalConfig.overflowTag();
+        }
+        String body = messageToLog.get();
+        SyslogDestination syslogDestination = getSyslogDestination(config);
+        this.emit(generalConfig, statistics, syslogDestination, tag, body);
+        if (!overflow) {
+            this.metrics.emitted(config.alertTag()).inc();
+            statistics.emitted().increment();
         }
+        if (window != null) {
+            this.deduplicator.register(window, syslogDestination, config.outputFormat(), tag, body);
+        }
+    }
 
-        LOGGER.debug("End of execute...");
+    private void emit(LoggingAlertConfigCache.Snapshot generalConfig, NotificationStatistics.Entry statistics,
+                      @Nullable SyslogDestination syslogDestination, String tag, String body) throws EventNotificationException {
+        Timer.Context emissionTime = this.metrics.emission().time();
+        try {
+            this.alertEmitter.emit(generalConfig, syslogDestination, tag, body);
+        } finally {
+            statistics.emission().record(emissionTime.stop());
+        }
+    }
+
+    private static Function<MessageSummary, String> timed(LatencyHistogram histogram, Function<MessageSummary, String> renderer) {
+        return message -> {
+            long start = System.nanoTime();
+            try {
+                return renderer.apply(message);
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static Supplier<String> timed(LatencyHistogram histogram, Supplier<String> renderer) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return renderer.get();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static List<String> getEventValues(LoggingAlertFields alertFields) {
+        return Arrays.asList(alertFields.getId(), String.valueOf(alertFields.getDetect_time()), alertFields.getMessages_url());
+    }
+
+    @Nullable
+    private static SyslogDestination getSyslogDestination(LoggingNotificationConfig config) {
+        if (config.syslogHost().isEmpty()) {
+            return null;
+        }
+        return new SyslogDestination(config.syslogProtocol(), config.syslogHost(), config.syslogPort());
+    }
+
+    private boolean isOverflow(LoggingAlertConfigCache.Snapshot generalConfig, LoggingNotificationConfig config, int index) {
+        if (generalConfig.hasOverflowLimit() && index >= generalConfig.limitOverflow()) {
+            return true;
+        }
+        LoggingAlertConfig pluginConfig = generalConfig.config();
+        if (!this.rateLimiter.tryAcquire(config.alertTag(), pluginConfig.accessRateLimit(), pluginConfig.accessRateLimitPeriod())) {
+            return true;
+        }
+        if (!this.clusterBudget.tryAcquire(config.alertTag(), pluginConfig.accessClusterBudget(),
+                pluginConfig.accessClusterBudgetPeriod(), pluginConfig.accessClusterBudgetLease())) {
+            // Note: the log goes to overflow, so it must not count against the rate limit of the tag
+            this.rateLimiter.release(config.alertTag(), pluginConfig.accessRateLimit(), pluginConfig.accessRateLimitPeriod());
+            return true;
+        }
+        return false;
     }
 }
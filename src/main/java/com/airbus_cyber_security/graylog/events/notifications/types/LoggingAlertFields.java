@@ -25,13 +25,15 @@ public class LoggingAlertFields {
 	private final String severity;
 	private final DateTime detectTime;
 	private final String messagesURL;
+	private final long omittedMessages;
 
-	public LoggingAlertFields(String id, String title, String severity, DateTime detectTime, String messagesURL)	{
+	public LoggingAlertFields(String id, String title, String severity, DateTime detectTime, String messagesURL, long omittedMessages)	{
 		this.id = id;
 		this.title = title;
 		this.severity = severity;
 		this.detectTime = detectTime;
 		this.messagesURL = messagesURL;
+		this.omittedMessages = omittedMessages;
 	}
 
 	public String getId() {
@@ -55,4 +57,9 @@ public class LoggingAlertFields {
 	public String getMessages_url() {
 		return messagesURL;
 	}
+
+	// Note: number of backlog messages left out by the backlog cap
+	public long getOmitted_messages() {
+		return omittedMessages;
+	}
 }
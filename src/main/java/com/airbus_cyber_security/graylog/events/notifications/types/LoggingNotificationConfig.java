@@ -18,12 +18,14 @@ package com.airbus_cyber_security.graylog.events.notifications.types;
 
 import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
 import com.airbus_cyber_security.graylog.events.contentpack.entities.LoggingNotificationConfigEntity;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogProtocol;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import org.graylog.events.contentpack.entities.EventNotificationConfigEntity;
 import org.graylog.events.event.EventDto;
 import org.graylog.events.notifications.EventNotificationConfig;
@@ -35,6 +37,8 @@ import org.graylog2.plugin.rest.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 
 /**
  * This is the configuration of a notification
@@ -50,6 +54,17 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
     private static final String FIELD_LOG_BODY = "log_body";
     private static final String FIELD_ALERT_TAG = "alert_tag";
     private static final String FIELD_SINGLE_MESSAGE = "single_notification";
+    private static final String FIELD_DEDUP_WINDOW = "dedup_window";
+    private static final String FIELD_DEDUP_FIELDS = "dedup_fields";
+    private static final String FIELD_OUTPUT_FORMAT = "output_format";
+    private static final String FIELD_JSON_FIELDS = "json_fields";
+    private static final String FIELD_SYSLOG_HOST = "syslog_host";
+    private static final String FIELD_SYSLOG_PORT = "syslog_port";
+    private static final String FIELD_SYSLOG_PROTOCOL = "syslog_protocol";
+    private static final String FIELD_COALESCE_WINDOW = "coalesce_window";
+    private static final String FIELD_COALESCE_MAX_EVENTS = "coalesce_max_events";
+    private static final int DEFAULT_SYSLOG_PORT = 514;
+    private static final int DEFAULT_COALESCE_MAX_EVENTS = 100;
 
     @JsonProperty(FIELD_LOG_BODY)
     public abstract String logBody();
@@ -60,6 +75,35 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
     @JsonProperty(FIELD_SINGLE_MESSAGE)
     public abstract boolean singleMessage();
 
+    @JsonProperty(FIELD_DEDUP_WINDOW)
+    public abstract int dedupWindow();
+
+    @JsonProperty(FIELD_DEDUP_FIELDS)
+    public abstract ImmutableList<String> dedupFields();
+
+    @JsonProperty(FIELD_OUTPUT_FORMAT)
+    public abstract OutputFormat outputFormat();
+
+    @JsonProperty(FIELD_JSON_FIELDS)
+    public abstract ImmutableList<String> jsonFields();
+
+    // Note: the logs are sent to this syslog receiver rather than to the sink of the plugin when it is not empty
+    @JsonProperty(FIELD_SYSLOG_HOST)
+    public abstract String syslogHost();
+
+    @JsonProperty(FIELD_SYSLOG_PORT)
+    public abstract int syslogPort();
+
+    @JsonProperty(FIELD_SYSLOG_PROTOCOL)
+    public abstract SyslogProtocol syslogProtocol();
+
+    // Note: in milliseconds, 0 when the events are not coalesced
+    @JsonProperty(FIELD_COALESCE_WINDOW)
+    public abstract int coalesceWindow();
+
+    @JsonProperty(FIELD_COALESCE_MAX_EVENTS)
+    public abstract int coalesceMaxEvents();
+
     @JsonIgnore
     @Override
     public JobTriggerData toJobTriggerData(EventDto dto) {
@@ -71,11 +115,45 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
     public ValidationResult validate() {
         final ValidationResult validation = new ValidationResult();
         String errorMessage;
-        if(logBody() == null || logBody().isEmpty()) {
+        if (outputFormat() == OutputFormat.TEMPLATE && (logBody() == null || logBody().isEmpty())) {
             errorMessage = "Log Body cannot be empty";
             LOGGER.error(errorMessage);
             validation.addError(FIELD_LOG_BODY, errorMessage);
         }
+        if (dedupWindow() < 0) {
+            errorMessage = "Deduplication window cannot be negative";
+            LOGGER.error(errorMessage);
+            validation.addError(FIELD_DEDUP_WINDOW, errorMessage);
+        }
+        if (outputFormat() == OutputFormat.JSON) {
+            if (jsonFields().isEmpty()) {
+                errorMessage = "JSON fields cannot be empty";
+                LOGGER.error(errorMessage);
+                validation.addError(FIELD_JSON_FIELDS, errorMessage);
+            }
+            for (String field: jsonFields()) {
+                if (!JsonLayout.isValid(field)) {
+                    errorMessage = "Unknown JSON field " + field;
+                    LOGGER.error(errorMessage);
+                    validation.addError(FIELD_JSON_FIELDS, errorMessage);
+                }
+            }
+        }
+        if (!syslogHost().isEmpty() && (syslogPort() < 1 || syslogPort() > 65535)) {
+            errorMessage = "Syslog port must be between 1 and 65535";
+            LOGGER.error(errorMessage);
+            validation.addError(FIELD_SYSLOG_PORT, errorMessage);
+        }
+        if (coalesceWindow() < 0) {
+            errorMessage = "Coalescing window cannot be negative";
+            LOGGER.error(errorMessage);
+            validation.addError(FIELD_COALESCE_WINDOW, errorMessage);
+        }
+        if (coalesceMaxEvents() < 1) {
+            errorMessage = "Coalescing maximum events must be at least 1";
+            LOGGER.error(errorMessage);
+            validation.addError(FIELD_COALESCE_MAX_EVENTS, errorMessage);
+        }
         return validation;
     }
 
@@ -92,7 +170,16 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
                     .type(TYPE_NAME)
                     .logBody(LoggingAlertConfig.BODY_TEMPLATE)
                     .alertTag("LoggingAlert")
-                    .singleMessage(false);
+                    .singleMessage(false)
+                    .dedupWindow(0)
+                    .dedupFields(List.of())
+                    .outputFormat(OutputFormat.TEMPLATE)
+                    .jsonFields(List.of())
+                    .syslogHost("")
+                    .syslogPort(DEFAULT_SYSLOG_PORT)
+                    .syslogProtocol(SyslogProtocol.TCP)
+                    .coalesceWindow(0)
+                    .coalesceMaxEvents(DEFAULT_COALESCE_MAX_EVENTS);
         }
 
         @JsonProperty(FIELD_LOG_BODY)
@@ -101,6 +188,24 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
         public abstract Builder alertTag(String alertTag);
         @JsonProperty(FIELD_SINGLE_MESSAGE)
         public abstract Builder singleMessage(boolean singleMessage);
+        @JsonProperty(FIELD_DEDUP_WINDOW)
+        public abstract Builder dedupWindow(int dedupWindow);
+        @JsonProperty(FIELD_DEDUP_FIELDS)
+        public abstract Builder dedupFields(List<String> dedupFields);
+        @JsonProperty(FIELD_OUTPUT_FORMAT)
+        public abstract Builder outputFormat(OutputFormat outputFormat);
+        @JsonProperty(FIELD_JSON_FIELDS)
+        public abstract Builder jsonFields(List<String> jsonFields);
+        @JsonProperty(FIELD_SYSLOG_HOST)
+        public abstract Builder syslogHost(String syslogHost);
+        @JsonProperty(FIELD_SYSLOG_PORT)
+        public abstract Builder syslogPort(int syslogPort);
+        @JsonProperty(FIELD_SYSLOG_PROTOCOL)
+        public abstract Builder syslogProtocol(SyslogProtocol syslogProtocol);
+        @JsonProperty(FIELD_COALESCE_WINDOW)
+        public abstract Builder coalesceWindow(int coalesceWindow);
+        @JsonProperty(FIELD_COALESCE_MAX_EVENTS)
+        public abstract Builder coalesceMaxEvents(int coalesceMaxEvents);
 
         public abstract LoggingNotificationConfig build();
     }
@@ -111,6 +216,15 @@ public abstract class LoggingNotificationConfig implements EventNotificationConf
                 .logBody(ValueReference.of(logBody()))
                 .alertTag(ValueReference.of(alertTag()))
                 .singleMessage(singleMessage())
+                .dedupWindow(dedupWindow())
+                .dedupFields(dedupFields())
+                .outputFormat(outputFormat())
+                .jsonFields(jsonFields())
+                .syslogHost(ValueReference.of(syslogHost()))
+                .syslogPort(syslogPort())
+                .syslogProtocol(syslogProtocol())
+                .coalesceWindow(coalesceWindow())
+                .coalesceMaxEvents(coalesceMaxEvents())
                 .build();
     }
 }
@@ -17,21 +17,25 @@
 package com.airbus_cyber_security.graylog.events.notifications.types;
 
 import com.airbus_cyber_security.graylog.events.config.SeverityType;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LoggingAlertMetrics;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.floreysoft.jmte.Engine;
 import com.google.common.collect.ImmutableList;
-import org.graylog.events.notifications.DBNotificationService;
 import org.graylog.events.notifications.EventNotificationContext;
 import org.graylog.events.notifications.EventNotificationModelData;
-import org.graylog.events.notifications.NotificationDto;
-import org.graylog.events.notifications.NotificationTestData;
 import org.graylog.events.processor.EventDefinitionDto;
 import org.graylog.scheduler.JobTriggerDto;
 import org.graylog2.jackson.TypeReferences;
 import org.graylog2.plugin.MessageSummary;
 import org.joda.time.DateTime;
 
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -40,20 +44,23 @@ public class MessageBodyBuilder {
 
     private static final String UNKNOWN = "<unknown>";
 
-    private final Engine templateEngine;
+    private static final TypeReference<List<Map<String, Object>>> LIST_OF_MAP_STRING_OBJECT = new TypeReference<>() {};
 
     private final ObjectMapper objectMapper;
 
     private final MessagesURLBuilder messagesURLBuilder;
 
-    private final DBNotificationService notificationService;
+    private final NotificationTitleCache notificationTitleCache;
+
+    private final LoggingAlertMetrics metrics;
 
     @Inject
-    public MessageBodyBuilder(ObjectMapper objectMapper, DBNotificationService notificationService) {
-        this.templateEngine = new Engine();
+    public MessageBodyBuilder(ObjectMapper objectMapper, NotificationTitleCache notificationTitleCache,
+                              MessagesURLBuilder messagesURLBuilder, LoggingAlertMetrics metrics) {
         this.objectMapper = objectMapper;
-        this.notificationService = notificationService;
-        this.messagesURLBuilder = new MessagesURLBuilder();
+        this.notificationTitleCache = notificationTitleCache;
+        this.messagesURLBuilder = messagesURLBuilder;
+        this.metrics = metrics;
     }
 
     // package-protected
@@ -61,54 +68,82 @@ public class MessageBodyBuilder {
         return context.event().id();
     }
 
-    private LoggingAlertFields buildLoggingAlertFields(EventNotificationContext context, DateTime date) {
-        String messagesUrl = this.messagesURLBuilder.buildMessagesUrl(context, date);
+    LoggingAlertFields buildLoggingAlertFields(EventNotificationContext context, DateTime date, long omittedMessages) {
+        String messagesUrl;
+        try (Timer.Context ignored = this.metrics.urlBuild().time()) {
+            messagesUrl = this.messagesURLBuilder.buildMessagesUrl(context, date);
+        }
         String loggingAlertID = getAlertIdentifier(context);
         String severity = getSeverityFromContext(context);
-        String notifTitle = getNotificationTitleFromContext(context);
+        String notifTitle = this.notificationTitleCache.get(context);
 
-        return new LoggingAlertFields(loggingAlertID, notifTitle, severity, date, messagesUrl);
+        return new LoggingAlertFields(loggingAlertID, notifTitle, severity, date, messagesUrl, omittedMessages);
     }
 
-    private Map<String, Object> getModel(EventNotificationContext context, ImmutableList<MessageSummary> backlog,  LoggingAlertFields loggingAlertFields) {
+    /**
+     * Converts the event definition level data into a template model.
+     * It is shared by the events of a batch, which all belong to the same event definition (see {@link #buildEventModel}).
+     */
+    public Map<String, Object> buildDefinitionModel(EventNotificationContext context) {
         Optional<EventDefinitionDto> definitionDto = context.eventDefinition();
-        Optional<JobTriggerDto> jobTriggerDto = context.jobTrigger();
-        EventNotificationModelData modelData = EventNotificationModelData.builder()
-                .eventDefinitionId(definitionDto.map(EventDefinitionDto::id).orElse(UNKNOWN))
-                .eventDefinitionType(definitionDto.map(d -> d.config().type()).orElse(UNKNOWN))
-                .eventDefinitionTitle(definitionDto.map(EventDefinitionDto::title).orElse(UNKNOWN))
-                .eventDefinitionDescription(definitionDto.map(EventDefinitionDto::description).orElse(UNKNOWN))
-                .remediationSteps(definitionDto.map(EventDefinitionDto::remediationSteps).orElse(UNKNOWN))
-                .jobDefinitionId(jobTriggerDto.map(JobTriggerDto::jobDefinitionId).orElse(UNKNOWN))
-                .jobTriggerId(jobTriggerDto.map(JobTriggerDto::id).orElse(UNKNOWN))
-                .event(context.event())
-                .backlog(backlog)
-                .build();
-        Map<String, Object> model = this.objectMapper.convertValue(modelData, TypeReferences.MAP_STRING_OBJECT);
-        model.put("logging_alert", loggingAlertFields);
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put(EventNotificationModelData.FIELD_EVENT_DEFINITION_ID, definitionDto.map(EventDefinitionDto::id).orElse(UNKNOWN));
+        model.put(EventNotificationModelData.FIELD_EVENT_DEFINITION_TYPE, definitionDto.map(d -> d.config().type()).orElse(UNKNOWN));
+        model.put(EventNotificationModelData.FIELD_EVENT_DEFINITION_TITLE, definitionDto.map(EventDefinitionDto::title).orElse(UNKNOWN));
+        model.put(EventNotificationModelData.FIELD_EVENT_DEFINITION_DESCRIPTION, definitionDto.map(EventDefinitionDto::description).orElse(UNKNOWN));
+        model.put(EventNotificationModelData.FIELD_REMEDIATION_STEPS, definitionDto.map(EventDefinitionDto::remediationSteps).orElse(UNKNOWN));
         return model;
     }
 
-    private String buildMessageBody(String logTemplate, EventNotificationContext context, ImmutableList<MessageSummary> backlog,  LoggingAlertFields loggingAlertFields) {
-        Map<String, Object> model = this.getModel(context, backlog, loggingAlertFields);
-        return this.templateEngine.transform(logTemplate, model);
+    public Map<String, Object> buildEventModel(EventNotificationContext context, DateTime date, long omittedMessages) {
+        return this.buildEventModel(this.buildDefinitionModel(context), context, date, omittedMessages);
     }
 
-    public String buildMessageBodyForBacklog(String logTemplate, EventNotificationContext context, DateTime date, ImmutableList<MessageSummary> backlog) {
-        String identifier = this.getAlertIdentifier(context);
-        String severity = getSeverityFromContext(context);
-        String notifTitle = getNotificationTitleFromContext(context);
+    /**
+     * Converts the event level data into a template model, once per execution.
+     * It holds the same fields as Graylog's {@link EventNotificationModelData}, except the backlog:
+     * it is laid over this model when rendering (see {@link BacklogOverlayModel}).
+     */
+    public Map<String, Object> buildEventModel(Map<String, Object> definitionModel, EventNotificationContext context,
+                                               DateTime date, long omittedMessages) {
+        Optional<JobTriggerDto> jobTriggerDto = context.jobTrigger();
+        Map<String, Object> model = new LinkedHashMap<>(definitionModel);
+        model.put(EventNotificationModelData.FIELD_JOB_DEFINITION_ID, jobTriggerDto.map(JobTriggerDto::jobDefinitionId).orElse(UNKNOWN));
+        model.put(EventNotificationModelData.FIELD_JOB_TRIGGER_ID, jobTriggerDto.map(JobTriggerDto::id).orElse(UNKNOWN));
+        try (Timer.Context ignored = this.metrics.modelConversion().time()) {
+            model.put(EventNotificationModelData.FIELD_EVENT, this.objectMapper.convertValue(context.event(), TypeReferences.MAP_STRING_OBJECT));
+        }
+        model.put("logging_alert", this.buildLoggingAlertFields(context, date, omittedMessages));
+        return model;
+    }
+
+    private String buildMessageBody(CompiledTemplate logTemplate, Map<String, Object> eventModel, List<MessageSummary> backlog) {
+        List<Map<String, Object>> backlogModel;
+        try (Timer.Context ignored = this.metrics.modelConversion().time()) {
+            backlogModel = this.buildBacklogModel(logTemplate.backlogPaths(), backlog);
+        }
+        try (Timer.Context ignored = this.metrics.render().time()) {
+            return logTemplate.transform(new BacklogOverlayModel(eventModel, backlogModel));
+        }
+    }
 
-        String messagesURL = this.messagesURLBuilder.buildMessagesUrl(context, date);
-        LoggingAlertFields loggingAlertFields = new LoggingAlertFields(identifier, notifTitle, severity, date, messagesURL);
-        return this.buildMessageBody(logTemplate, context, backlog, loggingAlertFields);
+    private List<Map<String, Object>> buildBacklogModel(@Nullable BacklogPaths backlogPaths, List<MessageSummary> backlog) {
+        if (backlogPaths == null) {
+            return this.objectMapper.convertValue(backlog, LIST_OF_MAP_STRING_OBJECT);
+        }
+        List<Map<String, Object>> result = new ArrayList<>(backlog.size());
+        for (MessageSummary message: backlog) {
+            result.add(backlogPaths.project(message, value -> this.objectMapper.convertValue(value, Object.class)));
+        }
+        return result;
     }
 
-    public String buildMessageBodyForMessage(String logTemplate, EventNotificationContext context, DateTime date, MessageSummary message) {
-        LoggingAlertFields loggingAlertFields = this.buildLoggingAlertFields(context, date);
-        ImmutableList<MessageSummary> backlogWithMessage = new ImmutableList.Builder<MessageSummary>().add(message).build();
+    public String buildMessageBodyForBacklog(CompiledTemplate logTemplate, Map<String, Object> eventModel, ImmutableList<MessageSummary> backlog) {
+        return this.buildMessageBody(logTemplate, eventModel, backlog);
+    }
 
-        return this.buildMessageBody(logTemplate, context, backlogWithMessage, loggingAlertFields);
+    public String buildMessageBodyForMessage(CompiledTemplate logTemplate, Map<String, Object> eventModel, MessageSummary message) {
+        return this.buildMessageBody(logTemplate, eventModel, Collections.singletonList(message));
     }
 
     private String getSeverityFromContext(EventNotificationContext context) {
@@ -119,12 +154,4 @@ public class MessageBodyBuilder {
 
         return severity;
     }
-
-    private String getNotificationTitleFromContext(EventNotificationContext context) {
-        if (NotificationTestData.TEST_NOTIFICATION_ID.equals(context.notificationId())) {
-           return "Notification Test Title";
-        }
-        Optional<NotificationDto> notif = notificationService.get(context.notificationId());
-        return notif.map(NotificationDto::title).orElse("No Title Notification");
-    }
 }
@@ -16,6 +16,8 @@
  */
 package com.airbus_cyber_security.graylog.events.notifications.types;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.graylog.events.event.EventDto;
 import org.graylog.events.notifications.EventNotificationContext;
 import org.graylog.events.processor.EventDefinitionDto;
@@ -25,13 +27,15 @@ import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
-import java.lang.reflect.Method;
+import jakarta.inject.Singleton;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
+@Singleton
 public class MessagesURLBuilder {
 
     private static final String MSGS_URL_BEGIN = "/search?rangetype=absolute&from=";
@@ -41,6 +45,17 @@ public class MessagesURLBuilder {
     private static final String COMMA_SEPARATOR = "%2C";
     private static final String EMPTY_VALUE = "(Empty Value)";
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormat.forPattern("yyy-MM-dd'T'HH'%3A'mm'%3A'ss.SSS'Z'");
+    private static final int MAXIMUM_DEFINITION_QUERIES = 1000;
+
+    private final Cache<String, DefinitionQuery> definitionQueries = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_DEFINITION_QUERIES)
+            .build();
+
+    private record DefinitionQuery(DateTime updatedAt, EventProcessorConfig config, String query) {
+        boolean isBuiltFrom(EventDefinitionDto eventDefinition) {
+            return Objects.equals(this.updatedAt, eventDefinition.updatedAt()) && this.config.equals(eventDefinition.config());
+        }
+    }
 
     private String buildSourceStreams(EventDto event) {
         Set<String> sourceStreams = event.sourceStreams();
@@ -59,33 +74,66 @@ public class MessagesURLBuilder {
 
     private String buildSearchQuery(Optional<EventDefinitionDto> eventDefinitionOpt, Map<String, String> groupByFields) {
         if (eventDefinitionOpt.isPresent()) {
-            EventDefinitionDto eventDefinition = eventDefinitionOpt.get();
-            EventProcessorConfig config = eventDefinition.config();
-            String configType = getEventProcessorConfigType(config);
+            String query = this.getDefinitionQuery(eventDefinitionOpt.get());
 
-            List<String> filters = new ArrayList<>();
+            // Add groupByFields in filters (separate empty value)
+            for (Map.Entry<String, String> entry: groupByFields.entrySet()) {
+                if (emptyValue(entry)) {
+                    query = and(query, "NOT _exists_:" + entry.getKey());
+                }
+            }
+            for (Map.Entry<String, String> entry: groupByFields.entrySet()) {
+                if (notEmptyValue(entry)) {
+                    query = and(query, entry.getKey() + ":" + entry.getValue());
+                }
+            }
 
-            if (configType.equals(AggregationEventProcessorConfig.TYPE_NAME)) {
-                filters.addAll(getFiltersFromAggregation((AggregationEventProcessorConfig) config));
-            } else if (configType.equals("correlation-count")) {
-                filters.addAll(getFiltersFromCorrelationCount(config));
+            if (query != null) {
+                return MSGS_URL_QUERY + query;
             }
+        }
 
-            // Add groupByFields in filters (separate empty value)
-            groupByFields.entrySet().stream().filter(MessagesURLBuilder::emptyValue)
-                    .map(entry -> "NOT _exists_:" + entry.getKey()).forEach(filters::add);
-            groupByFields.entrySet().stream().filter(MessagesURLBuilder::notEmptyValue)
-                    .map( entry -> entry.getKey() + ":" + entry.getValue()).forEach(filters::add);
+        return "";
+    }
 
-            // Build query
-            Optional<String> filterResult = filters.stream().reduce((x, y) -> "(" + x + ") AND (" + y + ")");
+    private static String and(String query, String filter) {
+        if (query == null) {
+            return filter;
+        }
+        return "(" + query + ") AND (" + filter + ")";
+    }
 
-            if (filterResult.isPresent()) {
-                return MSGS_URL_QUERY + filterResult.get();
-            }
+    /**
+     * Get the part of the search query which only depends on the event definition (null when there is none).
+     * It is computed once per version of the event definition.
+     */
+    private String getDefinitionQuery(EventDefinitionDto eventDefinition) {
+        if (eventDefinition.id() == null) {
+            return this.buildDefinitionQuery(eventDefinition.config());
         }
+        DefinitionQuery definitionQuery = this.definitionQueries.getIfPresent(eventDefinition.id());
+        if (definitionQuery == null || !definitionQuery.isBuiltFrom(eventDefinition)) {
+            definitionQuery = new DefinitionQuery(eventDefinition.updatedAt(), eventDefinition.config(), this.buildDefinitionQuery(eventDefinition.config()));
+            this.definitionQueries.put(eventDefinition.id(), definitionQuery);
+        }
+        return definitionQuery.query();
+    }
 
-        return "";
+    private String buildDefinitionQuery(EventProcessorConfig config) {
+        String configType = getEventProcessorConfigType(config);
+
+        List<String> filters = new ArrayList<>();
+        if (configType.equals(AggregationEventProcessorConfig.TYPE_NAME)) {
+            filters.addAll(getFiltersFromAggregation((AggregationEventProcessorConfig) config));
+        } else if (configType.equals("correlation-count")) {
+            filters.addAll(getFiltersFromCorrelationCount(config));
+        }
+
+        String query = null;
+        for (String filter: filters) {
+            query = and(query, filter);
+        }
+        return query;
     }
 
     /**
@@ -110,30 +158,14 @@ public class MessagesURLBuilder {
         return filters;
     }
 
-    /**
-     * Use Reflexion for CorrelationCountProcessorConfig to avoid dependency with graylog-plugin-correlation-count
-     */
     private List<String> getFiltersFromCorrelationCount(EventProcessorConfig config) {
-        try {
-            List<String> filters = new ArrayList<>();
-            Class<?> correlationCountClass = config.getClass().getSuperclass();
-            Method methodSearchQuery = correlationCountClass.getMethod("searchQuery");
-            String searchQuery = (String) methodSearchQuery.invoke(config);
+        List<String> filters = new ArrayList<>();
+        for (String searchQuery: CorrelationCountQueries.of(config.getClass()).get(config)) {
             if (isValidSearchQuery(searchQuery)) {
                 filters.add(searchQuery);
             }
-
-            Method additionalSearchQueryMethod = correlationCountClass.getMethod("additionalSearchQuery");
-            String additionalSearchQuery = (String) additionalSearchQueryMethod.invoke(config);
-            if (isValidSearchQuery(additionalSearchQuery)) {
-                filters.add(additionalSearchQuery);
-            }
-
-            return filters;
-        } catch (Exception e) {
-            // Keep Exception to be noticed if class signature changed
-            throw new RuntimeException(e);
         }
+        return filters;
     }
 
     private boolean isValidSearchQuery(String searchQuery) {
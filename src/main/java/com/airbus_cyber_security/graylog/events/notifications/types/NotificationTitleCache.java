@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.graylog.events.notifications.DBNotificationService;
+import org.graylog.events.notifications.EventNotificationConfig;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.NotificationDto;
+import org.graylog.events.notifications.NotificationTestData;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the title of the notifications, to avoid reading the notification from the database for each alert.
+ * Graylog does not publish any event when a notification is updated or deleted. However, the notification configuration
+ * of the execution context is read from the database for each execution: an entry is reloaded as soon as it differs
+ * from the configuration it was loaded with. Otherwise, entries expire after a short delay, so that a change of
+ * the title alone is eventually taken into account.
+ */
+@Singleton
+public class NotificationTitleCache {
+
+    private static final String TEST_NOTIFICATION_TITLE = "Notification Test Title";
+
+    private static final String NO_TITLE = "No Title Notification";
+
+    private static final int MAXIMUM_SIZE = 1000;
+
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(1);
+
+    private final DBNotificationService notificationService;
+
+    private final Cache<String, Entry> titles = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .build();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private record Entry(String title, EventNotificationConfig config) {}
+
+    @Inject
+    public NotificationTitleCache(DBNotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    public String get(EventNotificationContext context) {
+        String notificationId = context.notificationId();
+        if (NotificationTestData.TEST_NOTIFICATION_ID.equals(notificationId)) {
+            return TEST_NOTIFICATION_TITLE;
+        }
+        Entry entry = this.titles.getIfPresent(notificationId);
+        if (entry != null && entry.config().equals(context.notificationConfig())) {
+            this.hitCount.increment();
+            return entry.title();
+        }
+        this.missCount.increment();
+        Optional<NotificationDto> notification = this.notificationService.get(notificationId);
+        String title = notification.map(NotificationDto::title).orElse(NO_TITLE);
+        this.titles.put(notificationId, new Entry(title, context.notificationConfig()));
+        return title;
+    }
+
+    public long hitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long missCount() {
+        return this.missCount.sum();
+    }
+}
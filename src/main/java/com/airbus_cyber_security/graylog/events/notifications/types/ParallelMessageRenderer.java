@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import org.graylog.events.notifications.EventNotificationException;
+import org.graylog.events.notifications.TemporaryEventNotificationException;
+import org.graylog2.plugin.MessageSummary;
+
+import jakarta.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Renders the messages of large backlogs on a pool of worker threads.
+ * The backlog is cut into chunks rendered concurrently, while the calling thread consumes the chunks in the order
+ * of the backlog. Only a few chunks are in flight at once, so that memory does not grow with the size of the backlog.
+ * The pool is created when the service starts and shut down when it stops: while the service is not running,
+ * the messages are rendered on the calling thread.
+ */
+@Singleton
+public class ParallelMessageRenderer extends AbstractIdleService {
+
+    private static final int CHUNK_SIZE = 128;
+
+    private static final long TERMINATION_TIMEOUT_SECONDS = 10;
+
+    private final int parallelism;
+
+    private volatile ForkJoinPool pool;
+
+    public interface RenderedMessageConsumer {
+        void accept(int index, String message) throws EventNotificationException;
+    }
+
+    public ParallelMessageRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    ParallelMessageRenderer(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void render(List<MessageSummary> backlog, Function<MessageSummary, String> renderer, RenderedMessageConsumer consumer) throws EventNotificationException {
+        ForkJoinPool currentPool = this.pool;
+        if (currentPool == null || !this.isRunning()) {
+            for (int index = 0; index < backlog.size(); index++) {
+                consumer.accept(index, renderer.apply(backlog.get(index)));
+            }
+            return;
+        }
+        int maximumInFlight = 2 * this.parallelism;
+        Queue<Future<List<String>>> inFlight = new ArrayDeque<>(maximumInFlight);
+        int nextChunkStart = 0;
+        int index = 0;
+        try {
+            while (index < backlog.size()) {
+                while (nextChunkStart < backlog.size() && inFlight.size() < maximumInFlight) {
+                    List<MessageSummary> chunk = backlog.subList(nextChunkStart, Math.min(nextChunkStart + CHUNK_SIZE, backlog.size()));
+                    inFlight.add(submit(currentPool, chunk, renderer));
+                    nextChunkStart += chunk.size();
+                }
+                for (String message: waitFor(inFlight.remove())) {
+                    consumer.accept(index, message);
+                    index++;
+                }
+            }
+        } finally {
+            for (Future<List<String>> remaining: inFlight) {
+                remaining.cancel(false);
+            }
+        }
+    }
+
+    // Note: a chunk submitted while the service stops is rendered on the calling thread
+    private static Future<List<String>> submit(ForkJoinPool currentPool, List<MessageSummary> chunk, Function<MessageSummary, String> renderer) {
+        try {
+            return currentPool.submit(() -> renderChunk(chunk, renderer));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(renderChunk(chunk, renderer));
+        }
+    }
+
+    private static List<String> renderChunk(List<MessageSummary> chunk, Function<MessageSummary, String> renderer) {
+        List<String> result = new ArrayList<>(chunk.size());
+        for (MessageSummary message: chunk) {
+            result.add(renderer.apply(message));
+        }
+        return result;
+    }
+
+    private static List<String> waitFor(Future<List<String>> chunk) throws EventNotificationException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TemporaryEventNotificationException("Interrupted while rendering the backlog", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new EventNotificationException("Could not render the backlog", e.getCause());
+        }
+    }
+
+    @Override
+    protected void startUp() {
+        this.pool = new ForkJoinPool(this.parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("logging-alert-renderer-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Waits for the chunks being rendered.
+     */
+    @Override
+    protected void shutDown() throws InterruptedException {
+        this.pool.shutdown();
+        if (!this.pool.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            this.pool.shutdownNow();
+        }
+    }
+
+    @Override
+    protected String serviceName() {
+        return "logging-alert-parallel-renderer";
+    }
+}
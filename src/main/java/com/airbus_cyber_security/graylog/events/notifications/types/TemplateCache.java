@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.floreysoft.jmte.Engine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the compiled log body template, or JSON layout, of each notification.
+ * An entry is keyed by the notification identifier and is only reused while the log body (or JSON fields) of the
+ * notification and the line break substitution of the plugin configuration are unchanged, otherwise it is compiled again.
+ * Hits and misses are counted for both kinds of entries.
+ */
+@Singleton
+public class TemplateCache {
+
+    private static final String SEPARATOR_TEMPLATE = "\n";
+
+    private static final int MAXIMUM_SIZE = 1000;
+
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofHours(1);
+
+    private final Engine templateEngine = new Engine();
+
+    private final Cache<String, CompiledTemplate> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+            .build();
+
+    private final Cache<String, JsonLayout> jsonLayouts = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+            .build();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public CompiledTemplate get(String notificationId, String logBody, String separator) {
+        CompiledTemplate template = this.templates.getIfPresent(notificationId);
+        if (template != null && template.isCompiledFrom(logBody, separator)) {
+            this.hitCount.increment();
+            return template;
+        }
+        this.missCount.increment();
+        template = new CompiledTemplate(this.templateEngine, logBody, separator, logBody.replace(SEPARATOR_TEMPLATE, separator));
+        this.templates.put(notificationId, template);
+        return template;
+    }
+
+    JsonLayout getJsonLayout(String notificationId, List<String> jsonFields) {
+        JsonLayout layout = this.jsonLayouts.getIfPresent(notificationId);
+        if (layout != null && layout.isCompiledFrom(jsonFields)) {
+            this.hitCount.increment();
+            return layout;
+        }
+        this.missCount.increment();
+        layout = JsonLayout.compile(jsonFields);
+        this.jsonLayouts.put(notificationId, layout);
+        return layout;
+    }
+
+    public long size() {
+        return this.templates.size() + this.jsonLayouts.size();
+    }
+
+    public long hitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long missCount() {
+        return this.missCount.sum();
+    }
+}
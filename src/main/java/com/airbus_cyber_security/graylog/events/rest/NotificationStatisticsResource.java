@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.rest;
+
+import com.airbus_cyber_security.graylog.events.rest.StatisticsSummaries.NotificationSummary;
+import com.airbus_cyber_security.graylog.events.rest.StatisticsSummaries.StatisticsSummary;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.graylog2.plugin.rest.PluginRestResource;
+import org.graylog2.shared.rest.resources.RestResource;
+import org.graylog2.shared.security.RestPermissions;
+
+/**
+ * Exposes the statistics of the notifications executed on this node, so that the costly ones can be found.
+ */
+@RequiresAuthentication
+@Path("/statistics")
+@Produces(MediaType.APPLICATION_JSON)
+public class NotificationStatisticsResource extends RestResource implements PluginRestResource {
+
+    private final StatisticsSummaries summaries;
+
+    @Inject
+    public NotificationStatisticsResource(StatisticsSummaries summaries) {
+        this.summaries = summaries;
+    }
+
+    @GET
+    @RequiresPermissions(RestPermissions.METRICS_READ)
+    public StatisticsSummary get() {
+        return this.summaries.all();
+    }
+
+    @GET
+    @Path("/{notificationId}")
+    @RequiresPermissions(RestPermissions.METRICS_READ)
+    public NotificationSummary get(@PathParam("notificationId") String notificationId) {
+        return this.summaries.of(notificationId)
+                .orElseThrow(() -> new NotFoundException("No statistics for notification " + notificationId));
+    }
+}
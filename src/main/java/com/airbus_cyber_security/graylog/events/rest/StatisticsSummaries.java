@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.rest;
+
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LatencyHistogram;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.NotificationStatistics;
+import com.airbus_cyber_security.graylog.events.notifications.types.NotificationTitleCache;
+import com.airbus_cyber_security.graylog.events.notifications.types.TemplateCache;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summaries of the statistics of the notifications, as returned by the {@link NotificationStatisticsResource}.
+ */
+@Singleton
+public class StatisticsSummaries {
+
+    private final NotificationStatistics statistics;
+
+    private final TemplateCache templateCache;
+
+    private final NotificationTitleCache titleCache;
+
+    public record CacheSummary(@JsonProperty("hits") long hits,
+                               @JsonProperty("misses") long misses,
+                               @JsonProperty("hit_rate") double hitRate) {
+
+        static CacheSummary of(long hits, long misses) {
+            long total = hits + misses;
+            return new CacheSummary(hits, misses, total == 0 ? 0 : (double) hits / total);
+        }
+    }
+
+    public record LatencySummary(@JsonProperty("count") long count,
+                                 @JsonProperty("p50_us") long p50Microseconds,
+                                 @JsonProperty("p99_us") long p99Microseconds) {
+
+        static LatencySummary of(LatencyHistogram histogram) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            return new LatencySummary(snapshot.count(), TimeUnit.NANOSECONDS.toMicros(snapshot.p50()),
+                    TimeUnit.NANOSECONDS.toMicros(snapshot.p99()));
+        }
+    }
+
+    public record NotificationSummary(@JsonProperty("executions") long executions,
+                                      @JsonProperty("emitted_lines") long emittedLines,
+                                      @JsonProperty("overflowed_lines") long overflowedLines,
+                                      @JsonProperty("render_latency") LatencySummary renderLatency,
+                                      @JsonProperty("emission_latency") LatencySummary emissionLatency,
+                                      @JsonProperty("largest_recent_backlog") long largestRecentBacklog) {
+
+        static NotificationSummary of(NotificationStatistics.Entry entry) {
+            return new NotificationSummary(entry.executions().sum(), entry.emitted().sum(), entry.overflowed().sum(),
+                    LatencySummary.of(entry.render()), LatencySummary.of(entry.emission()), entry.largestBacklog().get());
+        }
+    }
+
+    public record StatisticsSummary(@JsonProperty("template_cache") CacheSummary templateCache,
+                                    @JsonProperty("title_cache") CacheSummary titleCache,
+                                    @JsonProperty("notifications") Map<String, NotificationSummary> notifications) {}
+
+    @Inject
+    public StatisticsSummaries(NotificationStatistics statistics, TemplateCache templateCache, NotificationTitleCache titleCache) {
+        this.statistics = statistics;
+        this.templateCache = templateCache;
+        this.titleCache = titleCache;
+    }
+
+    public StatisticsSummary all() {
+        Map<String, NotificationSummary> notifications = new TreeMap<>();
+        this.statistics.entries().forEach((notificationId, entry) -> notifications.put(notificationId, NotificationSummary.of(entry)));
+        return new StatisticsSummary(CacheSummary.of(this.templateCache.hitCount(), this.templateCache.missCount()),
+                CacheSummary.of(this.titleCache.hitCount(), this.titleCache.missCount()), notifications);
+    }
+
+    /**
+     * Summarizes the statistics of a single notification.
+     * @return empty when the notification has no statistics on this node
+     */
+    public Optional<NotificationSummary> of(String notificationId) {
+        return Optional.ofNullable(this.statistics.entries().get(notificationId)).map(NotificationSummary::of);
+    }
+}
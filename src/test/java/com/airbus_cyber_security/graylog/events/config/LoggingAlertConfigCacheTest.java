@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.config;
+
+import com.google.common.eventbus.EventBus;
+import org.graylog2.cluster.ClusterConfigChangedEvent;
+import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.graylog2.plugin.Tools;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoggingAlertConfigCacheTest {
+
+    private ClusterConfigService clusterConfigService;
+
+    private EventBus eventBus;
+
+    private LoggingAlertConfigCache subject;
+
+    @Before
+    public void setup() {
+        this.clusterConfigService = mock(ClusterConfigService.class);
+        when(this.clusterConfigService.getOrDefault(eq(LoggingAlertConfig.class), any())).thenReturn(LoggingAlertConfig.createDefault());
+        this.eventBus = new EventBus();
+        this.subject = new LoggingAlertConfigCache(this.clusterConfigService, this.eventBus);
+    }
+
+    private void postConfigChanged(Class<?> type) {
+        this.eventBus.post(ClusterConfigChangedEvent.create(Tools.nowUTC(), "nodeId", type.getCanonicalName()));
+    }
+
+    @Test
+    public void getShouldReadConfigurationOnlyOnce() {
+        this.subject.get();
+        this.subject.get();
+
+        verify(this.clusterConfigService, times(1)).getOrDefault(eq(LoggingAlertConfig.class), any());
+    }
+
+    @Test
+    public void getShouldReturnConfigurationUpdatedOnAnotherNode() {
+        this.subject.get();
+        LoggingAlertConfig updatedConfig = LoggingAlertConfig.createDefault().toBuilder().accessLimitOverflow(10).build();
+        when(this.clusterConfigService.getOrDefault(eq(LoggingAlertConfig.class), any())).thenReturn(updatedConfig);
+
+        this.postConfigChanged(LoggingAlertConfig.class);
+
+        Assert.assertEquals(10, this.subject.get().limitOverflow());
+    }
+
+    @Test
+    public void handleClusterConfigChangedShouldIgnoreOtherConfigurations() {
+        this.subject.get();
+
+        this.postConfigChanged(String.class);
+        this.subject.get();
+
+        verify(this.clusterConfigService, times(1)).getOrDefault(eq(LoggingAlertConfig.class), any());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.config;
+
+import org.graylog2.plugin.validate.ConfigValidationException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoggingAlertConfigValidatorTest {
+
+    private LoggingAlertConfigValidator subject;
+
+    @Before
+    public void setup() {
+        this.subject = new LoggingAlertConfigValidator();
+    }
+
+    @Test
+    public void validateShouldAcceptDefaultConfiguration() throws ConfigValidationException {
+        this.subject.validate(LoggingAlertConfig.createDefault());
+    }
+
+    @Test
+    public void validateShouldRejectNegativeQueueCapacity() {
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder().accessAsyncQueueCapacity(-1).build();
+
+        Assert.assertThrows(ConfigValidationException.class, () -> this.subject.validate(config));
+    }
+
+    @Test
+    public void validateShouldRejectQueueCapacityBeyondRingBufferSizing() {
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder().accessAsyncQueueCapacity(Integer.MAX_VALUE).build();
+
+        Assert.assertThrows(ConfigValidationException.class, () -> this.subject.validate(config));
+    }
+
+    @Test
+    public void validateShouldRejectZeroPeriods() {
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder()
+                .accessRateLimitPeriod(0)
+                .accessClusterBudgetPeriod(0)
+                .build();
+
+        Assert.assertEquals(2, config.validate().getErrors().size());
+    }
+}
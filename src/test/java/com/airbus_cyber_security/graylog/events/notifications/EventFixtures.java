@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationConfig;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog2.plugin.streams.Stream;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Builds the events and notification contexts used by the tests.
+ */
+public final class EventFixtures {
+
+    public static final DateTime EVENT_TIME = new DateTime(2023, 6, 21, 14, 43, 25, DateTimeZone.UTC);
+
+    private EventFixtures() {
+    }
+
+    public static EventDto.Builder eventBuilder() {
+        return EventDto.builder()
+                .id("EventId")
+                .alert(true)
+                .eventDefinitionId("EventDefinitionId")
+                .eventDefinitionType("aggregation-v1")
+                .eventTimestamp(EVENT_TIME)
+                .processingTimestamp(EVENT_TIME)
+                .streams(ImmutableSet.of(Stream.DEFAULT_EVENTS_STREAM_ID))
+                .sourceStreams(ImmutableSet.of())
+                .message("Event message")
+                .source("source")
+                .keyTuple(ImmutableList.of())
+                .key("")
+                .priority(2)
+                .fields(ImmutableMap.of());
+    }
+
+    public static EventNotificationContext buildContext(String notificationId, EventNotificationConfig config, EventDto event) {
+        return EventNotificationContext.builder()
+                .notificationId(notificationId)
+                .notificationConfig(config)
+                .event(event)
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.coalescing;
+
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import com.airbus_cyber_security.graylog.events.notifications.types.LoggingNotificationConfig;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class EventCoalescerTest {
+
+    private static final String NOTIFICATION_ID = "NotificationId";
+
+    private final BlockingQueue<List<EventNotificationContext>> handledBatches = new LinkedBlockingQueue<>();
+
+    private EventCoalescer subject;
+
+    @Before
+    public void setup() {
+        this.subject = new EventCoalescer();
+        this.subject.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() {
+        this.subject.stopAsync().awaitTerminated();
+    }
+
+    private static EventNotificationContext buildContext(String eventDefinitionId) {
+        return EventFixtures.buildContext(NOTIFICATION_ID, LoggingNotificationConfig.builder().build(),
+                EventFixtures.eventBuilder().eventDefinitionId(eventDefinitionId).build());
+    }
+
+    private void add(EventNotificationContext context, int windowMillis) {
+        Assert.assertTrue(this.subject.add(context, windowMillis, 3, this.handledBatches::add));
+    }
+
+    @Test
+    public void addShouldHandleBatchAsSoonAsItHoldsMaximumEvents() throws InterruptedException {
+        List<EventNotificationContext> contexts = List.of(buildContext("definition"), buildContext("definition"), buildContext("definition"));
+        for (EventNotificationContext context: contexts) {
+            this.add(context, 60000);
+        }
+
+        Assert.assertEquals(contexts, this.handledBatches.poll(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, this.subject.size());
+    }
+
+    @Test
+    public void addShouldHandleBatchOnceWindowElapsed() throws InterruptedException {
+        EventNotificationContext context = buildContext("definition");
+        this.add(context, 10);
+
+        Assert.assertEquals(List.of(context), this.handledBatches.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void addShouldKeepSeparateBatchesPerEventDefinition() {
+        EventNotificationContext firstContext = buildContext("definition1");
+        EventNotificationContext secondContext = buildContext("definition2");
+        this.add(firstContext, 60000);
+        this.add(secondContext, 60000);
+        Assert.assertEquals(2, this.subject.size());
+
+        this.subject.stopAsync().awaitTerminated();
+
+        Assert.assertEquals(List.of(List.of(firstContext), List.of(secondContext)), List.copyOf(this.handledBatches).stream()
+                .sorted((left, right) -> left.get(0).event().eventDefinitionId().compareTo(right.get(0).event().eventDefinitionId()))
+                .toList());
+    }
+
+    @Test
+    public void addShouldHandleBatchWhileAnotherBatchIsRunning() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        this.subject.add(buildContext("definition1"), 10, 3, contexts -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        EventNotificationContext context = buildContext("definition2");
+        this.add(context, 20);
+
+        Assert.assertEquals(List.of(context), this.handledBatches.poll(10, TimeUnit.SECONDS));
+        release.countDown();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.dedup;
+
+import com.airbus_cyber_security.graylog.events.notifications.types.OutputFormat;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class AlertDeduplicatorTest {
+
+    private final DateTime dummyTime = DateTime.parse("2023-06-21T14:43:25.000Z");
+
+    private AlertDeduplicator subject;
+
+    @Before
+    public void setup() {
+        this.subject = new AlertDeduplicator();
+    }
+
+    @Test
+    public void openShouldReturnNullForRepeatWithinWindow() {
+        AlertDeduplicator.Window window = this.subject.open("notificationId", "fingerprint", 60, this.dummyTime);
+        this.subject.register(window, null, OutputFormat.TEMPLATE, "tag", "message");
+
+        Assert.assertNull(this.subject.open("notificationId", "fingerprint", 60, this.dummyTime.plusSeconds(59)));
+    }
+
+    @Test
+    public void openShouldNotSuppressRepeatOfUnregisteredWindow() {
+        this.subject.open("notificationId", "fingerprint", 60, this.dummyTime);
+
+        Assert.assertNotNull(this.subject.open("notificationId", "fingerprint", 60, this.dummyTime.plusSeconds(1)));
+    }
+
+    @Test
+    public void openShouldOpenNewWindowForOtherNotification() {
+        this.subject.open("notificationId", "fingerprint", 60, this.dummyTime);
+
+        Assert.assertNotNull(this.subject.open("otherNotificationId", "fingerprint", 60, this.dummyTime));
+    }
+
+    @Test
+    public void closeShouldReturnWindowsWithRepeatCount() {
+        AlertDeduplicator.Window window = this.subject.open("notificationId", "fingerprint", 60, this.dummyTime);
+        this.subject.register(window, null, OutputFormat.TEMPLATE, "tag", "message");
+        this.subject.open("notificationId", "fingerprint", 60, this.dummyTime.plusSeconds(1));
+        this.subject.open("notificationId", "fingerprint", 60, this.dummyTime.plusSeconds(2));
+
+        List<AlertDeduplicator.Window> result = this.subject.close(this.dummyTime.plusSeconds(60));
+
+        Assert.assertEquals(2, result.get(0).repeatCount());
+        Assert.assertEquals(0, this.subject.size());
+    }
+
+    @Test
+    public void closeShouldIgnoreWindowsWithoutRepeat() {
+        AlertDeduplicator.Window window = this.subject.open("notificationId", "fingerprint", 60, this.dummyTime);
+        this.subject.register(window, null, OutputFormat.TEMPLATE, "tag", "message");
+
+        Assert.assertTrue(this.subject.close(this.dummyTime.plusSeconds(60)).isEmpty());
+    }
+}
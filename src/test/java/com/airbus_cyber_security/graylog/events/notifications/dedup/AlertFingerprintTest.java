@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.dedup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class AlertFingerprintTest {
+
+    @Test
+    public void ofShouldIgnoreEventValuesOfWholeLog() {
+        String fingerprint = AlertFingerprint.of(List.of(), Map.of(), null, () -> "id: event1 | severity: low", List.of("event1"));
+        String otherFingerprint = AlertFingerprint.of(List.of(), Map.of(), null, () -> "id: event2 | severity: low", List.of("event2"));
+
+        Assert.assertEquals(fingerprint, otherFingerprint);
+    }
+
+    @Test
+    public void ofShouldDistinguishWholeLogsWithOtherContent() {
+        String fingerprint = AlertFingerprint.of(List.of(), Map.of(), null, () -> "id: event1 | severity: low", List.of("event1"));
+        String otherFingerprint = AlertFingerprint.of(List.of(), Map.of(), null, () -> "id: event2 | severity: high", List.of("event2"));
+
+        Assert.assertNotEquals(fingerprint, otherFingerprint);
+    }
+}
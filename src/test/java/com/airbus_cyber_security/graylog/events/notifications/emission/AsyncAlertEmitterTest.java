@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncAlertEmitterTest {
+
+    private static final long EMIT_TIMEOUT = 5000;
+
+    private AlertSink sink;
+
+    private AsyncAlertEmitter subject;
+
+    @Before
+    public void setup() {
+        LoggingAlertConfigCache.Snapshot snapshot = mock(LoggingAlertConfigCache.Snapshot.class);
+        when(snapshot.config()).thenReturn(LoggingAlertConfig.createDefault());
+        LoggingAlertConfigCache configCache = mock(LoggingAlertConfigCache.class);
+        when(configCache.get()).thenReturn(snapshot);
+        this.sink = mock(AlertSink.class);
+        this.subject = new AsyncAlertEmitter(configCache, this.sink, new MetricRegistry());
+        this.subject.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() {
+        this.subject.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void offerShouldWakeUpIdleEmitter() throws InterruptedException {
+        Thread.sleep(50);
+
+        Assert.assertTrue(this.subject.offer("LoggingAlert", "log"));
+
+        verify(this.sink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "log");
+    }
+
+    @Test
+    public void stopShouldEmitQueuedLogs() {
+        for (int i = 0; i < 100; i++) {
+            this.subject.offer("LoggingAlert", "log" + i);
+        }
+
+        this.subject.stopAsync().awaitTerminated();
+
+        verify(this.sink).emit("LoggingAlert", "log99");
+    }
+
+    @Test
+    public void offerShouldReturnFalseAfterStop() {
+        this.subject.stopAsync().awaitTerminated();
+
+        Assert.assertFalse(this.subject.offer("LoggingAlert", "log"));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappedFileAlertSinkTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    private MappedFileAlertSink subject;
+
+    @Before
+    public void setup() {
+        this.directory = this.temporaryFolder.getRoot().toPath().resolve("segments");
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder()
+                .accessFileSinkDirectory(this.directory.toString())
+                .accessFileSinkSegmentSize(1)
+                .accessFileSinkRollInterval(60)
+                .accessFileSinkSyncBatch(2)
+                .build();
+        LoggingAlertConfigCache.Snapshot snapshot = mock(LoggingAlertConfigCache.Snapshot.class);
+        when(snapshot.config()).thenReturn(config);
+        LoggingAlertConfigCache configCache = mock(LoggingAlertConfigCache.class);
+        when(configCache.get()).thenReturn(snapshot);
+        this.subject = new MappedFileAlertSink(configCache, mock(LoggerAlertSink.class), this.clock::get);
+        this.subject.startAsync().awaitRunning();
+    }
+
+    private List<Path> listFiles(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(path -> path.toString().endsWith(extension)).sorted().toList();
+        }
+    }
+
+    private static long readTail(Path tailPath) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(tailPath)).getLong();
+    }
+
+    @Test
+    public void emitShouldUpdateTailMarkerWithLengthOfSyncedContent() throws IOException {
+        this.subject.emit("LoggingAlert", "first");
+        this.subject.emit("LoggingAlert", "second\nline");
+        this.subject.emit("LoggingAlert", "third");
+
+        String expectedContent = "LoggingAlert first\nLoggingAlert second\\nline\n";
+        List<Path> tails = this.listFiles(MappedSegment.TAIL_EXTENSION);
+        Assert.assertEquals(1, tails.size());
+        long length = readTail(tails.get(0));
+        Assert.assertEquals(expectedContent.length(), length);
+        byte[] content = Files.readAllBytes(this.listFiles(MappedSegment.SEGMENT_EXTENSION).get(0));
+        Assert.assertEquals(expectedContent, new String(content, 0, (int) length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shutDownShouldTruncateSegmentAndRemoveTailMarker() throws IOException {
+        this.subject.emit("LoggingAlert", "log");
+        this.subject.stopAsync().awaitTerminated();
+
+        Assert.assertEquals(List.of(), this.listFiles(MappedSegment.TAIL_EXTENSION));
+        Path segment = this.listFiles(MappedSegment.SEGMENT_EXTENSION).get(0);
+        Assert.assertEquals("LoggingAlert log\n", Files.readString(segment, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void emitShouldRollSegmentAfterRollInterval() throws IOException {
+        this.subject.emit("LoggingAlert", "first");
+        this.clock.addAndGet(60_000);
+        this.subject.emit("LoggingAlert", "second");
+
+        List<Path> segments = this.listFiles(MappedSegment.SEGMENT_EXTENSION);
+        Assert.assertEquals(2, segments.size());
+        Assert.assertEquals("LoggingAlert first\n", Files.readString(segments.get(0), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, this.listFiles(MappedSegment.TAIL_EXTENSION).size());
+    }
+
+    @Test
+    public void emitShouldCutBackSegmentLeftOpenToItsTailMarker() throws IOException {
+        Files.createDirectories(this.directory);
+        Path segment = this.directory.resolve("alerts-0-0" + MappedSegment.SEGMENT_EXTENSION);
+        Files.write(segment, new byte[]{'a', '\n', 0, 0, 0, 0});
+        Files.write(MappedSegment.tailPathOf(segment), ByteBuffer.allocate(Long.BYTES).putLong(2).array());
+
+        this.subject.emit("LoggingAlert", "log");
+
+        Assert.assertEquals("a\n", Files.readString(segment, StandardCharsets.UTF_8));
+        Assert.assertEquals(1, this.listFiles(MappedSegment.TAIL_EXTENSION).size());
+    }
+
+    @Test
+    public void emitShouldNeitherLoseNorInterleaveLinesOfConcurrentThreads() throws Exception {
+        int threadCount = 8;
+        int logCount = 2000;
+        String padding = "x".repeat(80);
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < threadCount; thread++) {
+            String tag = "Tag" + thread;
+            // Note: half the threads are virtual, they borrow their encoder from the pool of the sink
+            Thread.Builder builder = (thread % 2 == 0) ? Thread.ofPlatform() : Thread.ofVirtual();
+            threads.add(builder.name("emitter-" + thread).unstarted(() -> {
+                for (int i = 0; i < logCount; i++) {
+                    this.subject.emit(tag, i + " " + padding + "\nend");
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        this.subject.stopAsync().awaitTerminated();
+
+        // Note: the logs are large enough to fill more than one segment
+        List<Path> segments = this.listFiles(MappedSegment.SEGMENT_EXTENSION);
+        Assert.assertTrue(segments.size() > 1);
+        Map<String, Integer> nextIndexPerTag = new HashMap<>();
+        for (Path segment: segments) {
+            for (String line: Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ", 3);
+                int expectedIndex = nextIndexPerTag.getOrDefault(parts[0], 0);
+                Assert.assertEquals(String.valueOf(expectedIndex), parts[1]);
+                Assert.assertEquals(padding + "\\nend", parts[2]);
+                nextIndexPerTag.put(parts[0], expectedIndex + 1);
+            }
+        }
+        Assert.assertEquals(threadCount, nextIndexPerTag.size());
+        for (int count: nextIndexPerTag.values()) {
+            Assert.assertEquals(logCount, count);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.emission;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RingBufferTest {
+
+    @Test
+    public void capacityShouldBeRoundedToPowerOfTwo() {
+        Assert.assertEquals(8, new RingBuffer<String>(5).capacity());
+    }
+
+    @Test
+    public void offerShouldFailWhenBufferIsFull() {
+        RingBuffer<String> subject = new RingBuffer<>(2);
+        Assert.assertTrue(subject.offer("a"));
+        Assert.assertTrue(subject.offer("b"));
+        Assert.assertFalse(subject.offer("c"));
+        Assert.assertEquals("a", subject.poll());
+        Assert.assertTrue(subject.offer("c"));
+        Assert.assertEquals("b", subject.poll());
+        Assert.assertEquals("c", subject.poll());
+        Assert.assertNull(subject.poll());
+    }
+
+    @Test
+    public void pollShouldReturnElementsOfEachProducerInOrder() throws InterruptedException {
+        int producerCount = 4;
+        int elementCount = 10000;
+        RingBuffer<int[]> subject = new RingBuffer<>(64);
+        List<Thread> producers = new ArrayList<>();
+        for (int producer = 0; producer < producerCount; producer++) {
+            int producerIdentifier = producer;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < elementCount; i++) {
+                    while (!subject.offer(new int[]{producerIdentifier, i})) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        int[] nextExpected = new int[producerCount];
+        int received = 0;
+        while (received < producerCount * elementCount) {
+            int[] element = subject.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Assert.assertEquals(nextExpected[element[0]], element[1]);
+            nextExpected[element[0]]++;
+            received++;
+        }
+        for (Thread thread: producers) {
+            thread.join();
+        }
+        Assert.assertTrue(subject.isEmpty());
+    }
+}
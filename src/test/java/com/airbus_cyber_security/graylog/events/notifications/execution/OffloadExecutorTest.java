@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.execution;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OffloadExecutorTest {
+
+    private MetricRegistry metricRegistry;
+
+    private OffloadExecutor subject;
+
+    @Before
+    public void setup() {
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder()
+                .accessOffloadExecution(true)
+                .accessOffloadConcurrency(1)
+                .build();
+        LoggingAlertConfigCache.Snapshot snapshot = mock(LoggingAlertConfigCache.Snapshot.class);
+        when(snapshot.config()).thenReturn(config);
+        LoggingAlertConfigCache configCache = mock(LoggingAlertConfigCache.class);
+        when(configCache.get()).thenReturn(snapshot);
+        this.metricRegistry = new MetricRegistry();
+        this.subject = new OffloadExecutor(configCache, this.metricRegistry);
+        this.subject.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() {
+        this.subject.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void trySubmitShouldRunTaskOnVirtualThread() {
+        AtomicBoolean virtual = new AtomicBoolean();
+
+        boolean submitted = this.subject.trySubmit("notificationId", () -> virtual.set(Thread.currentThread().isVirtual()));
+        this.subject.stopAsync().awaitTerminated();
+
+        Assert.assertTrue(submitted);
+        Assert.assertTrue(virtual.get());
+        Assert.assertEquals(0, this.subject.inFlight());
+        Assert.assertEquals(1, this.metricRegistry.timer(MetricRegistry.name(OffloadExecutor.class, "completion-latency")).getCount());
+    }
+
+    @Test
+    public void trySubmitShouldRefuseTaskPastConcurrencyLimit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        this.subject.trySubmit("notificationId", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+
+        boolean submitted = this.subject.trySubmit("notificationId", () -> {});
+        Assert.assertEquals(1, this.subject.inFlight());
+        release.countDown();
+
+        Assert.assertFalse(submitted);
+    }
+}
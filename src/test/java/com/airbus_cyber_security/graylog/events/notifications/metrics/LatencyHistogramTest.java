@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram subject;
+
+    @Before
+    public void setup() {
+        this.subject = new LatencyHistogram();
+    }
+
+    @Test
+    public void upperBoundOfShouldBoundValuesOfBucket() {
+        long[] values = {0, 7, 8, 15, 16, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value: values) {
+            long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+            Assert.assertTrue(value <= upperBound);
+            Assert.assertTrue(upperBound - value <= value / 8);
+        }
+    }
+
+    @Test
+    public void snapshotShouldReturnPercentilesWithinBucketPrecision() {
+        for (int i = 1; i <= 1000; i++) {
+            this.subject.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = this.subject.snapshot();
+
+        Assert.assertEquals(1000, snapshot.count());
+        Assert.assertEquals(500_000.0, (double) snapshot.p50(), 500_000 / 8.0);
+        Assert.assertEquals(990_000.0, (double) snapshot.p99(), 990_000 / 8.0);
+    }
+}
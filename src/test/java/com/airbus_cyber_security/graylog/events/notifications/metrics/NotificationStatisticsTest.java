@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class NotificationStatisticsTest {
+
+    private long now;
+
+    private NotificationStatistics subject;
+
+    @Before
+    public void setup() {
+        this.now = 0;
+        this.subject = new NotificationStatistics(() -> this.now);
+    }
+
+    @Test
+    public void getShouldRemoveEntriesIdleForTooLong() {
+        this.subject.get("idle").executions().increment();
+        this.subject.get("active").executions().increment();
+
+        this.now += NotificationStatistics.IDLE_EXPIRATION_NANOS / 2;
+        this.subject.get("active").executions().increment();
+        this.now += NotificationStatistics.IDLE_EXPIRATION_NANOS / 2 + TimeUnit.HOURS.toNanos(1);
+        this.subject.get("active").executions().increment();
+
+        Assert.assertFalse(this.subject.entries().containsKey("idle"));
+        Assert.assertEquals(3, this.subject.entries().get("active").executions().sum());
+    }
+
+    @Test
+    public void getShouldKeepEntriesUsedRecently() {
+        this.subject.get("notification").executions().increment();
+
+        this.now += TimeUnit.HOURS.toNanos(2);
+        this.subject.get("other");
+
+        Assert.assertTrue(this.subject.entries().containsKey("notification"));
+    }
+}
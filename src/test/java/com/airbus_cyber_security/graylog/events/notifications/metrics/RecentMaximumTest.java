@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecentMaximumTest {
+
+    private static final long WINDOW_NANOS = 1000;
+
+    private long now;
+
+    private RecentMaximum subject;
+
+    @Before
+    public void setup() {
+        this.now = 0;
+        this.subject = new RecentMaximum(WINDOW_NANOS, () -> this.now);
+    }
+
+    @Test
+    public void getShouldKeepMaximumOfPreviousWindow() {
+        this.subject.record(5);
+        this.subject.record(3);
+
+        this.now += WINDOW_NANOS;
+        this.subject.record(2);
+
+        Assert.assertEquals(5, this.subject.get());
+    }
+
+    @Test
+    public void getShouldForgetMaximumOlderThanPreviousWindow() {
+        this.subject.record(5);
+
+        this.now += 2 * WINDOW_NANOS;
+        this.subject.record(2);
+
+        Assert.assertEquals(2, this.subject.get());
+    }
+
+    @Test
+    public void getShouldForgetMaximumAfterTwoWindowsWithoutValue() {
+        this.subject.record(5);
+
+        this.now += WINDOW_NANOS;
+        Assert.assertEquals(5, this.subject.get());
+
+        this.now += WINDOW_NANOS;
+        Assert.assertEquals(0, this.subject.get());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ClusterOverflowBudgetTest {
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger storeCalls = new AtomicInteger();
+
+    // Note: in-memory stand-in of the MongoDB collection, shared by the nodes
+    private final ClusterBudgetStore store = (key, amount, expiresAt) -> {
+        this.storeCalls.incrementAndGet();
+        return this.counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(amount);
+    };
+
+    private long now;
+
+    private ClusterOverflowBudget subject;
+
+    @Before
+    public void setup() {
+        this.now = 0;
+        this.subject = this.createNode();
+    }
+
+    private ClusterOverflowBudget createNode() {
+        return new ClusterOverflowBudget(this.store, new MetricRegistry(), () -> this.now);
+    }
+
+    private static int countAcquired(ClusterOverflowBudget node, int attempts, int limit, int leaseSize) {
+        int count = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (node.tryAcquire("tag", limit, 60, leaseSize)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void tryAcquireShouldShareLimitBetweenNodes() {
+        ClusterOverflowBudget otherNode = this.createNode();
+
+        int count = 0;
+        for (int i = 0; i < 10; i++) {
+            count += countAcquired(this.subject, 3, 10, 3);
+            count += countAcquired(otherNode, 3, 10, 3);
+        }
+
+        Assert.assertEquals(10, count);
+    }
+
+    @Test
+    public void tryAcquireShouldOnlyReachStoreOncePerLease() {
+        countAcquired(this.subject, 10, 100, 5);
+
+        Assert.assertEquals(2, this.storeCalls.get());
+    }
+
+    @Test
+    public void tryAcquireShouldRenewLimitInNextWindow() {
+        countAcquired(this.subject, 20, 10, 3);
+
+        this.now += TimeUnit.SECONDS.toMillis(60);
+
+        Assert.assertEquals(10, countAcquired(this.subject, 20, 10, 3));
+    }
+
+    @Test
+    public void reconcileShouldGiveBackTokensOfIdleLease() {
+        ClusterOverflowBudget otherNode = this.createNode();
+        countAcquired(this.subject, 1, 10, 5);
+
+        this.subject.reconcile();
+        this.subject.reconcile();
+
+        Assert.assertEquals(9, countAcquired(otherNode, 20, 10, 5));
+    }
+
+    @Test
+    public void reconcileShouldNotGiveBackTokensOfLeaseInUse() {
+        ClusterOverflowBudget otherNode = this.createNode();
+        countAcquired(this.subject, 1, 10, 5);
+
+        this.subject.reconcile();
+        countAcquired(this.subject, 1, 10, 5);
+        this.subject.reconcile();
+
+        Assert.assertEquals(5, countAcquired(otherNode, 20, 10, 5));
+    }
+
+    @Test
+    public void tryAcquireShouldCheckStoreAgainAfterBackoffWhenLimitReached() {
+        ClusterOverflowBudget otherNode = this.createNode();
+        countAcquired(otherNode, 1, 10, 5);
+        countAcquired(this.subject, 20, 10, 5);
+        otherNode.reconcile();
+        otherNode.reconcile();
+
+        Assert.assertEquals(0, countAcquired(this.subject, 1, 10, 5));
+
+        this.now += TimeUnit.SECONDS.toMillis(10);
+
+        Assert.assertEquals(4, countAcquired(this.subject, 20, 10, 5));
+    }
+
+    @Test
+    public void tryAcquireShouldAllowLogsWhenStoreFails() {
+        ClusterOverflowBudget node = new ClusterOverflowBudget((key, amount, expiresAt) -> {
+            throw new IllegalStateException("store is down");
+        }, new MetricRegistry(), () -> this.now);
+
+        Assert.assertEquals(20, countAcquired(node, 20, 10, 3));
+    }
+}
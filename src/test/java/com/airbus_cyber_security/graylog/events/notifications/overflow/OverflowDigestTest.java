@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogDestination;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogProtocol;
+import com.airbus_cyber_security.graylog.events.notifications.types.LoggingNotificationConfig;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog2.plugin.MessageSummary;
+import org.graylog2.plugin.Tools;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OverflowDigestTest {
+
+    private final DateTime dummyTime = DateTime.parse("2023-06-21T14:43:25.000Z");
+
+    private OverflowDigest subject;
+
+    @Before
+    public void setup() {
+        this.subject = new OverflowDigest();
+    }
+
+    private EventNotificationContext buildContext(String groupByKey) {
+        return EventFixtures.buildContext("notificationId", LoggingNotificationConfig.builder().build(),
+                EventFixtures.eventBuilder().eventDefinitionId("definitionId").key(groupByKey).build());
+    }
+
+    private List<String> messagesOf(List<OverflowDigest.Summary> summaries) {
+        return summaries.stream().map(OverflowDigest.Summary::message).toList();
+    }
+
+    private MessageSummary buildMessage(String text, DateTime timestamp) {
+        MessageSummary message = mock(MessageSummary.class);
+        when(message.getMessage()).thenReturn(text);
+        when(message.getTimestamp()).thenReturn(timestamp);
+        return message;
+    }
+
+    @Test
+    public void flushShouldSummarizeMessagesOfTheSameKey() {
+        EventNotificationContext context = this.buildContext("key");
+        this.subject.add(context, this.buildMessage("first", this.dummyTime.plusSeconds(1)), null);
+        this.subject.add(context, this.buildMessage("second", this.dummyTime), null);
+
+        List<String> result = this.messagesOf(this.subject.flush(Tools.nowUTC().plusSeconds(60), 60, " | "));
+
+        Assert.assertEquals(List.of("type: overflow_digest | notification_id: notificationId | event_definition_id: definitionId | key: key"
+                + " | count: 2 | first_timestamp: 2023-06-21T14:43:25.000Z | last_timestamp: 2023-06-21T14:43:26.000Z | sample: first"), result);
+    }
+
+    @Test
+    public void flushShouldKeepCountsBeforeTheirIntervalElapsed() {
+        this.subject.add(this.buildContext("key"), this.buildMessage("first", this.dummyTime), null);
+
+        List<OverflowDigest.Summary> result = this.subject.flush(Tools.nowUTC(), 60, " | ");
+
+        Assert.assertTrue(result.isEmpty());
+        Assert.assertEquals(1, this.subject.size());
+    }
+
+    @Test
+    public void flushAllShouldSummarizeCountsBeforeTheirIntervalElapsed() {
+        this.subject.add(this.buildContext("key"), this.buildMessage("first", this.dummyTime), null);
+
+        List<OverflowDigest.Summary> result = this.subject.flushAll(" | ");
+
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(0, this.subject.size());
+    }
+
+    @Test
+    public void flushShouldKeepTheSyslogDestinationOfTheNotification() {
+        SyslogDestination syslogDestination = new SyslogDestination(SyslogProtocol.UDP, "localhost", 514);
+        this.subject.add(this.buildContext("key"), this.buildMessage("first", this.dummyTime), syslogDestination);
+
+        List<OverflowDigest.Summary> result = this.subject.flushAll(" | ");
+
+        Assert.assertEquals(syslogDestination, result.get(0).syslogDestination());
+    }
+
+    @Test
+    public void flushShouldSummarizeEachGroupByKeySeparately() {
+        this.subject.add(this.buildContext("key1"), this.buildMessage("first", this.dummyTime), null);
+        this.subject.add(this.buildContext("key2"), this.buildMessage("second", this.dummyTime), null);
+
+        Assert.assertEquals(2, this.subject.flush(Tools.nowUTC().plusSeconds(60), 60, " | ").size());
+    }
+
+    @Test
+    public void addShouldCountKeysPastTheCapUnderOtherKey() {
+        this.subject = new OverflowDigest(2);
+        this.subject.add(this.buildContext("key1"), this.buildMessage("first", this.dummyTime), null);
+        this.subject.add(this.buildContext("key2"), this.buildMessage("second", this.dummyTime), null);
+        this.subject.add(this.buildContext("key3"), this.buildMessage("third", this.dummyTime), null);
+        this.subject.add(this.buildContext("key4"), this.buildMessage("fourth", this.dummyTime), null);
+
+        List<String> result = this.messagesOf(this.subject.flush(Tools.nowUTC().plusSeconds(60), 60, " | "));
+
+        Assert.assertTrue(result.contains("type: overflow_digest | notification_id: notificationId | event_definition_id: definitionId"
+                + " | key: (other keys) | count: 2 | first_timestamp: 2023-06-21T14:43:25.000Z | last_timestamp: 2023-06-21T14:43:25.000Z | sample: third"));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.overflow;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TagRateLimiterTest {
+
+    private long now;
+
+    private TagRateLimiter subject;
+
+    @Before
+    public void setup() {
+        this.now = 0;
+        this.subject = new TagRateLimiter(() -> this.now);
+    }
+
+    private int countAcquired(String tag, int attempts, int limit, int periodInSeconds) {
+        int count = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (this.subject.tryAcquire(tag, limit, periodInSeconds)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void tryAcquireShouldAllowLimitOverPeriod() {
+        Assert.assertEquals(10, this.countAcquired("tag", 50, 10, 60));
+    }
+
+    @Test
+    public void tryAcquireShouldRefillOverPeriod() {
+        this.countAcquired("tag", 10, 10, 60);
+
+        this.now += TimeUnit.SECONDS.toNanos(30);
+
+        Assert.assertEquals(5, this.countAcquired("tag", 50, 10, 60));
+    }
+
+    @Test
+    public void tryAcquireShouldLimitEachTagSeparately() {
+        this.countAcquired("tag", 10, 10, 60);
+
+        Assert.assertEquals(10, this.countAcquired("otherTag", 50, 10, 60));
+    }
+
+    @Test
+    public void releaseShouldGiveBackAcquiredLog() {
+        this.countAcquired("tag", 10, 10, 60);
+
+        this.subject.release("tag", 10, 60);
+
+        Assert.assertEquals(1, this.countAcquired("tag", 50, 10, 60));
+    }
+
+    @Test
+    public void tryAcquireShouldAlwaysAllowWhenNoLimit() {
+        Assert.assertEquals(50, this.countAcquired("tag", 50, 0, 60));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.spool;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertSink;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AlertSpoolTest {
+
+    private static final long EMIT_TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LoggingAlertConfigCache configCache;
+
+    private AlertSink sink;
+
+    private AlertSpool subject;
+
+    @Before
+    public void setup() {
+        this.directory = this.temporaryFolder.getRoot().toPath().resolve("spool");
+        LoggingAlertConfig config = LoggingAlertConfig.createDefault().toBuilder()
+                .accessSpool(true)
+                .accessSpoolDirectory(this.directory.toString())
+                .accessSpoolMaxSize(1)
+                .build();
+        LoggingAlertConfigCache.Snapshot snapshot = mock(LoggingAlertConfigCache.Snapshot.class);
+        when(snapshot.config()).thenReturn(config);
+        this.configCache = mock(LoggingAlertConfigCache.class);
+        when(this.configCache.get()).thenReturn(snapshot);
+        this.sink = mock(AlertSink.class);
+        this.subject = this.startSpool(this.sink);
+    }
+
+    @After
+    public void tearDown() {
+        this.subject.stopAsync().awaitTerminated();
+    }
+
+    private AlertSpool startSpool(AlertSink sink) {
+        AlertSpool spool = new AlertSpool(this.configCache, sink, new MetricRegistry());
+        spool.startAsync().awaitRunning();
+        return spool;
+    }
+
+    @Test
+    public void appendShouldEmitLogWithSink() {
+        Assert.assertTrue(this.subject.append("LoggingAlert", "log"));
+
+        verify(this.sink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "log");
+    }
+
+    @Test
+    public void startUpShouldReplayLogsWhichWereNotEmitted() {
+        doThrow(new IllegalStateException("sink is down")).when(this.sink).emit("LoggingAlert", "log");
+        this.subject.append("LoggingAlert", "log");
+        verify(this.sink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "log");
+        this.subject.stopAsync().awaitTerminated();
+
+        AlertSink restartedSink = mock(AlertSink.class);
+        this.subject = this.startSpool(restartedSink);
+
+        verify(restartedSink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "log");
+    }
+
+    @Test
+    public void startUpShouldNotReplayLogsWhichWereEmitted() {
+        this.subject.append("LoggingAlert", "log");
+        verify(this.sink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "log");
+        this.subject.stopAsync().awaitTerminated();
+
+        AlertSink restartedSink = mock(AlertSink.class);
+        this.subject = this.startSpool(restartedSink);
+        this.subject.append("LoggingAlert", "next");
+
+        verify(restartedSink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "next");
+        verify(restartedSink, never()).emit("LoggingAlert", "log");
+    }
+
+    @Test
+    public void appendShouldRejectLogWhenSpoolIsFull() {
+        doThrow(new IllegalStateException("sink is down")).when(this.sink).emit("LoggingAlert", "first");
+        String message = "a".repeat(600 * 1024);
+
+        Assert.assertTrue(this.subject.append("LoggingAlert", "first"));
+        Assert.assertTrue(this.subject.append("LoggingAlert", message));
+        Assert.assertFalse(this.subject.append("LoggingAlert", message));
+    }
+
+    @Test
+    public void startUpShouldSkipCorruptedEndOfSegment() throws IOException {
+        this.subject.stopAsync().awaitTerminated();
+        Files.createDirectories(this.directory);
+        Path segment = this.directory.resolve(AlertSpool.SEGMENT_PREFIX + "00000000000000000000" + AlertSpool.SEGMENT_EXTENSION);
+        Files.write(segment, SpoolRecord.encode("LoggingAlert", "intact"), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        byte[] corrupted = SpoolRecord.encode("LoggingAlert", "corrupted");
+        corrupted[corrupted.length - 1] ^= 1;
+        Files.write(segment, corrupted, StandardOpenOption.APPEND);
+        Files.write(segment, SpoolRecord.encode("LoggingAlert", "skipped"), StandardOpenOption.APPEND);
+
+        AlertSink restartedSink = mock(AlertSink.class);
+        this.subject = this.startSpool(restartedSink);
+        this.subject.append("LoggingAlert", "next");
+
+        verify(restartedSink, timeout(EMIT_TIMEOUT)).emit("LoggingAlert", "next");
+        verify(restartedSink).emit("LoggingAlert", "intact");
+        verify(restartedSink, never()).emit("LoggingAlert", "corrupted");
+        verify(restartedSink, never()).emit("LoggingAlert", "skipped");
+    }
+}
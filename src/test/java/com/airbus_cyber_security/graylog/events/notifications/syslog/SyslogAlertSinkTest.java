@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.syslog;
+
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertSink;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class SyslogAlertSinkTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    private static final String HOST = LOOPBACK.getHostAddress();
+
+    private static final int RECEIVE_TIMEOUT = 5000;
+
+    private static final String LOG_PATTERN = "<133>1 \\S+ \\S+ LoggingAlert - - - ";
+
+    private AlertSink fallbackSink;
+
+    private SyslogAlertSink subject;
+
+    @Before
+    public void setup() {
+        this.fallbackSink = mock(AlertSink.class);
+        this.subject = new SyslogAlertSink(this.fallbackSink, new MetricRegistry());
+        this.subject.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() {
+        this.subject.stopAsync().awaitTerminated();
+    }
+
+    private static String readFrame(DataInputStream input) throws IOException {
+        StringBuilder length = new StringBuilder();
+        int character = input.read();
+        while (character != ' ') {
+            length.append((char) character);
+            character = input.read();
+        }
+        byte[] payload = new byte[Integer.parseInt(length.toString())];
+        input.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void emitShouldSendOctetCountedFramesOverTcp() throws IOException {
+        try (ServerSocket receiver = new ServerSocket(0, 1, LOOPBACK)) {
+            SyslogDestination destination = new SyslogDestination(SyslogProtocol.TCP, HOST, receiver.getLocalPort());
+            for (int i = 0; i < 3; i++) {
+                this.subject.emit(destination, "LoggingAlert", "log" + i + " | severity: low");
+            }
+            receiver.setSoTimeout(RECEIVE_TIMEOUT);
+            try (Socket connection = receiver.accept()) {
+                connection.setSoTimeout(RECEIVE_TIMEOUT);
+                DataInputStream input = new DataInputStream(connection.getInputStream());
+                for (int i = 0; i < 3; i++) {
+                    String frame = readFrame(input);
+                    Assert.assertTrue(frame, frame.matches(LOG_PATTERN + "log" + i + " \\| severity: low"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emitShouldSendOneDatagramPerLogOverUdp() throws IOException {
+        try (DatagramSocket receiver = new DatagramSocket(0, LOOPBACK)) {
+            receiver.setSoTimeout(RECEIVE_TIMEOUT);
+            SyslogDestination destination = new SyslogDestination(SyslogProtocol.UDP, HOST, receiver.getLocalPort());
+            this.subject.emit(destination, "LoggingAlert", "log");
+
+            DatagramPacket packet = new DatagramPacket(new byte[2048], 2048);
+            receiver.receive(packet);
+            String datagram = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+            Assert.assertTrue(datagram, datagram.matches(LOG_PATTERN + "log"));
+        }
+    }
+
+    @Test
+    public void emitShouldTruncateLogsLargerThanDatagram() throws IOException {
+        try (DatagramSocket receiver = new DatagramSocket(0, LOOPBACK)) {
+            receiver.setSoTimeout(RECEIVE_TIMEOUT);
+            SyslogDestination destination = new SyslogDestination(SyslogProtocol.UDP, HOST, receiver.getLocalPort());
+            this.subject.emit(destination, "LoggingAlert", "a".repeat(SyslogAlertSink.MAXIMUM_DATAGRAM_SIZE));
+            this.subject.emit(destination, "LoggingAlert", "log");
+
+            DatagramPacket packet = new DatagramPacket(new byte[70000], 70000);
+            receiver.receive(packet);
+            Assert.assertEquals(SyslogAlertSink.MAXIMUM_DATAGRAM_SIZE, packet.getLength());
+            receiver.receive(packet);
+            String datagram = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+            Assert.assertTrue(datagram, datagram.matches(LOG_PATTERN + "log"));
+        }
+    }
+
+    @Test
+    public void emitShouldFallBackWhenReceiverIsUnreachable() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 1, LOOPBACK)) {
+            closedPort = socket.getLocalPort();
+        }
+        this.subject.emit(new SyslogDestination(SyslogProtocol.TCP, HOST, closedPort), "LoggingAlert", "log");
+
+        verify(this.fallbackSink, timeout(RECEIVE_TIMEOUT)).emit("LoggingAlert", "log");
+    }
+
+    @Test
+    public void connectionShouldNotBeAttemptedAgainBeforeBackoff() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 1, LOOPBACK)) {
+            closedPort = socket.getLocalPort();
+        }
+        SyslogConnection connection = new SyslogConnection(new SyslogDestination(SyslogProtocol.TCP, HOST, closedPort));
+        Assert.assertThrows(IOException.class, () -> connection.send(List.of(new byte[]{'a'})));
+        connection.failed(1000);
+
+        Assert.assertFalse(connection.isAvailable(1000 + SyslogConnection.INITIAL_BACKOFF_MILLIS - 1));
+        Assert.assertTrue(connection.isAvailable(1000 + SyslogConnection.INITIAL_BACKOFF_MILLIS));
+        Assert.assertEquals(2 * SyslogConnection.INITIAL_BACKOFF_MILLIS, connection.backoffMillis());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class BacklogOverlayModelTest {
+
+    private final TemplateCache templateCache = new TemplateCache();
+
+    private final Map<String, Object> eventModel = ImmutableMap.of(
+            "event_definition_title", "Title",
+            "event", ImmutableMap.of("fields", ImmutableMap.of("aggregation_id", "42")),
+            "backlog", ImmutableList.of());
+
+    @Test
+    public void getShouldResolveBacklogFromOverlay() {
+        Object backlog = ImmutableList.of(ImmutableMap.of("fields", ImmutableMap.of("src_ip", "1.2.3.4")));
+        BacklogOverlayModel model = new BacklogOverlayModel(this.eventModel, backlog);
+
+        Assert.assertSame(backlog, model.get("backlog"));
+        Assert.assertEquals("Title", model.get("event_definition_title"));
+        Assert.assertEquals(this.eventModel.size(), model.size());
+    }
+
+    @Test
+    public void transformShouldRenderDefaultTemplateWithOverlay() {
+        Object backlog = ImmutableList.of(ImmutableMap.of("fields", ImmutableMap.of("src_ip", "1.2.3.4")));
+        CompiledTemplate template = this.templateCache.get("id", LoggingAlertConfig.BODY_TEMPLATE, " | ");
+
+        String result = template.transform(new BacklogOverlayModel(this.eventModel, backlog));
+
+        Assert.assertTrue(result.contains("aggregation_id: 42"));
+        Assert.assertTrue(result.contains("subject: Title"));
+        Assert.assertTrue(result.contains("src: 1.2.3.4"));
+    }
+
+    @Test
+    public void transformShouldSkipBacklogSectionWhenOverlayIsEmpty() {
+        CompiledTemplate template = this.templateCache.get("id", LoggingAlertConfig.BODY_TEMPLATE, " | ");
+
+        String result = template.transform(new BacklogOverlayModel(this.eventModel, ImmutableList.of()));
+
+        Assert.assertFalse(result.contains("src:"));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.floreysoft.jmte.Engine;
+import org.graylog2.plugin.MessageSummary;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BacklogPathsTest {
+
+    private Engine engine;
+
+    @Before
+    public void setup() {
+        this.engine = new Engine();
+    }
+
+    private BacklogPaths analyze(String template) {
+        return BacklogPaths.analyze(this.engine.getTemplate(template), template);
+    }
+
+    @Test
+    public void analyzeShouldFindFieldsOfDefaultTemplate() {
+        BacklogPaths result = this.analyze(LoggingAlertConfig.BODY_TEMPLATE);
+
+        Assert.assertEquals(Set.of("fields"), result.properties());
+        Assert.assertEquals(Set.of("src_ip", "src_category", "dest_ip", "dest_category"), result.fields());
+    }
+
+    @Test
+    public void analyzeShouldFollowForeachVariable() {
+        BacklogPaths result = this.analyze("${foreach backlog message}${if message.fields.user}${message.fields.user}${end} ${message.source}${end}");
+
+        Assert.assertEquals(Set.of("fields", "source"), result.properties());
+        Assert.assertEquals(Set.of("user"), result.fields());
+    }
+
+    @Test
+    public void analyzeShouldGiveUpWhenWholeMessageIsRendered() {
+        Assert.assertNull(this.analyze("${foreach backlog message}${message}${end}"));
+    }
+
+    @Test
+    public void projectShouldOnlyKeepReferencedFields() {
+        MessageSummary message = mock(MessageSummary.class);
+        when(message.getSource()).thenReturn("source");
+        when(message.getFields()).thenReturn(Map.of("src_ip", "10.0.0.1", "other", "value"));
+        BacklogPaths subject = this.analyze("${backlog[0].source} ${backlog[0].fields.src_ip} ${backlog[0].fields.dest_ip}");
+
+        Map<String, Object> result = subject.project(message, value -> value);
+
+        Assert.assertEquals(Map.of("source", "source", "fields", Map.of("src_ip", "10.0.0.1")), result);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationService;
+import org.graylog.events.notifications.EventNotificationSettings;
+import org.graylog.events.processor.EventDefinitionDto;
+import org.graylog.events.processor.EventProcessor;
+import org.graylog.events.processor.EventProcessorConfig;
+import org.graylog2.plugin.MessageSummary;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BacklogSourceTest {
+
+    private static final String EVENT_DEFINITION_TYPE = "aggregation-v1";
+
+    private final DateTime dummyTime = DateTime.parse("2023-06-21T14:43:25Z");
+
+    private EventNotificationService notificationService;
+
+    private EventProcessor eventProcessor;
+
+    private BacklogSource subject;
+
+    @Before
+    public void setup() {
+        this.notificationService = mock(EventNotificationService.class);
+        this.eventProcessor = mock(EventProcessor.class);
+        EventProcessor.Factory<?> factory = mock(EventProcessor.Factory.class);
+        doAnswer(invocation -> this.eventProcessor).when(factory).create(any());
+        this.subject = new BacklogSource(this.notificationService, Map.of(EVENT_DEFINITION_TYPE, factory));
+    }
+
+    private MessageSummary buildMessage(int index) {
+        MessageSummary message = mock(MessageSummary.class);
+        when(message.getId()).thenReturn("message" + index);
+        when(message.getTimestamp()).thenReturn(this.dummyTime.minusSeconds(index));
+        return message;
+    }
+
+    private EventNotificationContext buildContext(long backlogSize) {
+        EventDefinitionDto eventDefinition = EventDefinitionDto.builder()
+                .id("EventDefinitionId")
+                .title("Event definition")
+                .description("")
+                .priority(2)
+                .alert(true)
+                .config(mock(EventProcessorConfig.class))
+                .keySpec(ImmutableList.of())
+                .notificationSettings(EventNotificationSettings.builder()
+                        .gracePeriodMs(0)
+                        .backlogSize(backlogSize)
+                        .build())
+                .build();
+        return EventNotificationContext.builder()
+                .notificationId("NotificationId")
+                .notificationConfig(LoggingNotificationConfig.builder().build())
+                .event(EventFixtures.eventBuilder()
+                        .eventDefinitionType(EVENT_DEFINITION_TYPE)
+                        .eventTimestamp(this.dummyTime)
+                        .processingTimestamp(this.dummyTime)
+                        .groupByFields(ImmutableMap.of())
+                        .build())
+                .eventDefinition(eventDefinition)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sourcePages(List<List<MessageSummary>> pages) throws Exception {
+        doAnswer(invocation -> {
+            Consumer<List<MessageSummary>> consumer = invocation.getArgument(1);
+            pages.forEach(consumer);
+            return null;
+        }).when(this.eventProcessor).sourceMessagesForEvent(any(), any(), eq(100L));
+    }
+
+    @Test
+    public void fetchShouldKeepOnlyTheFirstMessagesOfThePages() throws Exception {
+        this.sourcePages(List.of(List.of(this.buildMessage(0), this.buildMessage(1)), List.of(this.buildMessage(2), this.buildMessage(3))));
+
+        Backlog backlog = this.subject.fetch(this.buildContext(100), 3);
+
+        Assert.assertEquals(3, backlog.size());
+        Assert.assertEquals("message2", backlog.messages().get(2).getId());
+        Assert.assertEquals(1, backlog.omittedCount());
+    }
+
+    @Test
+    public void fetchShouldComputeEarliestTimestampOverOmittedMessages() throws Exception {
+        this.sourcePages(List.of(List.of(this.buildMessage(0), this.buildMessage(5))));
+
+        Backlog backlog = this.subject.fetch(this.buildContext(100), 1);
+
+        Assert.assertEquals(this.dummyTime.minusSeconds(5), backlog.earliestTimestamp());
+    }
+
+    @Test
+    public void fetchShouldReturnWholeBacklogWhenNotCapped() throws Exception {
+        EventNotificationContext context = this.buildContext(100);
+        ImmutableList<MessageSummary> messages = ImmutableList.of(this.buildMessage(0), this.buildMessage(1));
+        when(this.notificationService.getBacklogForEvent(context)).thenReturn(messages);
+
+        Backlog backlog = this.subject.fetch(context, 0);
+
+        Assert.assertEquals(2, backlog.size());
+        Assert.assertEquals(0, backlog.omittedCount());
+        verify(this.eventProcessor, never()).sourceMessagesForEvent(any(), any(), eq(100L));
+    }
+}
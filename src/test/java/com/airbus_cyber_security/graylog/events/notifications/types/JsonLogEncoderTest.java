@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog2.plugin.MessageSummary;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JsonLogEncoderTest {
+
+    private final DateTime dummyTime = new DateTime(2023, 6, 21, 14, 43, 25, DateTimeZone.UTC);
+
+    private JsonLayout.Source source;
+
+    private JsonLogEncoder subject;
+
+    @Before
+    public void setup() {
+        EventDto event = EventFixtures.eventBuilder()
+                .message("Event \"message\"")
+                .priority(2)
+                .groupByFields(ImmutableMap.of("user", "admin"))
+                .build();
+        EventNotificationContext context = EventFixtures.buildContext("NotificationId", LoggingNotificationConfig.builder().build(), event);
+        MessageSummary message = mock(MessageSummary.class);
+        when(message.getField("ports")).thenReturn(List.of(22, 80));
+        when(message.getField("blocked")).thenReturn(true);
+        LoggingAlertFields alertFields = new LoggingAlertFields("alertId", "title", "low", this.dummyTime, "url", 0);
+        this.source = new JsonLayout.Source(context, alertFields, message);
+        this.subject = new JsonLogEncoder();
+    }
+
+    private String encode(String... fields) {
+        return this.subject.encode(JsonLayout.compile(List.of(fields)), this.source);
+    }
+
+    @Test
+    public void encodeShouldWriteFieldsInOrder() {
+        String result = this.encode("logging_alert.id", "event.message", "event.priority");
+
+        Assert.assertEquals("{\"logging_alert.id\":\"alertId\",\"event.message\":\"Event \\\"message\\\"\",\"event.priority\":2}", result);
+    }
+
+    @Test
+    public void encodeShouldWriteTypedMessageFields() {
+        String result = this.encode("message.fields.ports", "message.fields.blocked", "message.fields.missing");
+
+        Assert.assertEquals("{\"message.fields.ports\":[22,80],\"message.fields.blocked\":true,\"message.fields.missing\":null}", result);
+    }
+
+    @Test
+    public void encodeShouldWriteDatesInIsoFormat() {
+        String result = this.encode("logging_alert.detect_time");
+
+        Assert.assertEquals("{\"logging_alert.detect_time\":\"2023-06-21T14:43:25.000Z\"}", result);
+    }
+
+    @Test
+    public void encodeShouldReuseBufferBetweenLogs() {
+        this.encode("event.group_by_fields.user", "event_definition_title");
+        String result = this.encode("event.group_by_fields.user");
+
+        Assert.assertEquals("{\"event.group_by_fields.user\":\"admin\"}", result);
+    }
+
+    @Test
+    public void appendFieldShouldKeepTheLogAJsonObject() throws IOException {
+        String result = this.subject.appendField(this.encode("logging_alert.id"), "repeat_count", 3);
+
+        JsonNode log = new ObjectMapper().readTree(result);
+        Assert.assertEquals("alertId", log.get("logging_alert.id").asText());
+        Assert.assertEquals(3, log.get("repeat_count").asLong());
+    }
+
+    @Test
+    public void appendFieldShouldWriteIntoAnEmptyObject() {
+        String result = this.subject.appendField(this.encode(), "repeat_count", 3);
+
+        Assert.assertEquals("{\"repeat_count\":3}", result);
+    }
+
+    @Test
+    public void isValidShouldRejectUnknownFields() {
+        Assert.assertFalse(JsonLayout.isValid("event.unknown"));
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.config.FullQueuePolicy;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig;
+import com.airbus_cyber_security.graylog.events.config.LoggingAlertConfigCache;
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import com.airbus_cyber_security.graylog.events.notifications.coalescing.EventCoalescer;
+import com.airbus_cyber_security.graylog.events.notifications.dedup.AlertDeduplicator;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.emission.AsyncAlertEmitter;
+import com.airbus_cyber_security.graylog.events.notifications.emission.LoggerAlertSink;
+import com.airbus_cyber_security.graylog.events.notifications.execution.OffloadExecutor;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.LoggingAlertMetrics;
+import com.airbus_cyber_security.graylog.events.notifications.metrics.NotificationStatistics;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterBudgetStore;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.ClusterOverflowBudget;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.OverflowDigest;
+import com.airbus_cyber_security.graylog.events.notifications.overflow.TagRateLimiter;
+import com.airbus_cyber_security.graylog.events.notifications.spool.AlertSpool;
+import com.airbus_cyber_security.graylog.events.notifications.syslog.SyslogAlertSink;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.EventNotificationService;
+import org.graylog2.plugin.MessageSummary;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoggingAlertTest {
+
+    private static final String NOTIFICATION_ID = "NotificationId";
+
+    private static final String ALERT_TAG = "LoggingAlert";
+
+    private static final String OVERFLOW_TAG = "LoggingOverflow";
+
+    private final DateTime dummyTime = DateTime.parse("2023-06-21T14:43:25Z");
+
+    private LoggingAlertConfigCache configCache;
+
+    private EventNotificationService notificationService;
+
+    private MessageBodyBuilder messageBodyBuilder;
+
+    private OverflowDigest overflowDigest;
+
+    private LoggingAlertMetrics metrics;
+
+    private NotificationStatistics statistics;
+
+    private EventCoalescer coalescer;
+
+    private ParallelMessageRenderer parallelRenderer;
+
+    private AlertEmitter alertEmitter;
+
+    private final List<String> emittedLogs = new ArrayList<>();
+
+    private final List<Boolean> emittedFromVirtualThread = new ArrayList<>();
+
+    private final Set<String> renderingThreads = ConcurrentHashMap.newKeySet();
+
+    private boolean failNextEmission;
+
+    private LoggingAlert subject;
+
+    @Before
+    public void setup() {
+        this.configCache = mock(LoggingAlertConfigCache.class);
+        this.notificationService = mock(EventNotificationService.class);
+        this.messageBodyBuilder = mock(MessageBodyBuilder.class);
+        this.overflowDigest = new OverflowDigest();
+        this.metrics = new LoggingAlertMetrics(new MetricRegistry());
+        this.statistics = new NotificationStatistics();
+        this.coalescer = new EventCoalescer();
+        this.parallelRenderer = new ParallelMessageRenderer(4);
+        when(this.messageBodyBuilder.buildMessageBodyForMessage(any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    this.renderingThreads.add(Thread.currentThread().getName());
+                    return invocation.<MessageSummary>getArgument(2).getId();
+                });
+        when(this.messageBodyBuilder.buildMessageBodyForBacklog(any(), any(), any())).thenReturn("backlog");
+
+        LoggerAlertSink sink = mock(LoggerAlertSink.class);
+        doAnswer(invocation -> {
+            if (this.failNextEmission) {
+                this.failNextEmission = false;
+                throw new IllegalStateException("appender is down");
+            }
+            this.emittedFromVirtualThread.add(Thread.currentThread().isVirtual());
+            return this.emittedLogs.add(invocation.getArgument(0) + ":" + invocation.getArgument(1));
+        }).when(sink).emit(anyString(), anyString());
+        // Note: the services are not started, the default configuration emits the logs synchronously to the sink
+        this.alertEmitter = new AlertEmitter(sink, new AsyncAlertEmitter(this.configCache, sink, new MetricRegistry()),
+                new SyslogAlertSink(sink, new MetricRegistry()), new AlertSpool(this.configCache, sink, new MetricRegistry()),
+                new MetricRegistry());
+        this.subject = this.buildSubject(new OffloadExecutor(this.configCache, new MetricRegistry()));
+    }
+
+    private LoggingAlert buildSubject(OffloadExecutor offloadExecutor) {
+        BacklogSource backlogSource = new BacklogSource(this.notificationService, Map.of());
+        return new LoggingAlert(this.configCache, backlogSource, this.messageBodyBuilder,
+                new TemplateCache(), this.alertEmitter, this.parallelRenderer, new TagRateLimiter(),
+                new ClusterOverflowBudget(mock(ClusterBudgetStore.class), new MetricRegistry()), this.overflowDigest,
+                new AlertDeduplicator(), this.metrics, this.statistics, new JsonLogEncoder(), offloadExecutor, this.coalescer);
+    }
+
+    private void setLimitOverflow(int limitOverflow) {
+        this.setConfig(limitOverflow, 0);
+    }
+
+    private void setConfig(int limitOverflow, int parallelRenderingThreshold) {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessLimitOverflow(limitOverflow)
+                .accessParallelRenderingThreshold(parallelRenderingThreshold));
+    }
+
+    private void setConfig(LoggingAlertConfig.Builder configBuilder) {
+        LoggingAlertConfig config = configBuilder
+                .accessOverflowTag(OVERFLOW_TAG)
+                .build();
+        LoggingAlertConfigCache.Snapshot snapshot = mock(LoggingAlertConfigCache.Snapshot.class);
+        when(snapshot.config()).thenReturn(config);
+        when(snapshot.separator()).thenReturn(config.accessSeparator());
+        when(snapshot.limitOverflow()).thenReturn(config.accessLimitOverflow());
+        when(snapshot.hasOverflowLimit()).thenReturn(config.accessLimitOverflow() > 0);
+        when(snapshot.overflowTag()).thenReturn(OVERFLOW_TAG);
+        when(this.configCache.get()).thenReturn(snapshot);
+    }
+
+    private EventNotificationContext buildContext(boolean singleMessage, int backlogSize) {
+        return this.buildContext(LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .singleMessage(singleMessage)
+                .build(), backlogSize);
+    }
+
+    private EventNotificationContext buildContext(LoggingNotificationConfig notificationConfig, int backlogSize) {
+        return this.buildContext(notificationConfig, backlogSize, "EventId");
+    }
+
+    private EventNotificationContext buildContext(LoggingNotificationConfig notificationConfig, int backlogSize, String eventId) {
+        ImmutableList.Builder<MessageSummary> backlog = ImmutableList.builder();
+        for (int i = 0; i < backlogSize; i++) {
+            MessageSummary message = mock(MessageSummary.class);
+            when(message.getId()).thenReturn("message" + i);
+            when(message.getTimestamp()).thenReturn(this.dummyTime.minusSeconds(i));
+            backlog.add(message);
+        }
+        EventDto event = EventFixtures.eventBuilder().id(eventId).eventTimestamp(this.dummyTime).build();
+        EventNotificationContext context = EventFixtures.buildContext(NOTIFICATION_ID, notificationConfig, event);
+        when(this.notificationService.getBacklogForEvent(context)).thenReturn(backlog.build());
+        return context;
+    }
+
+    @Test
+    public void executeShouldLogOneMessagePerBacklogMessageInOrder() throws Exception {
+        this.setLimitOverflow(0);
+        this.subject.execute(this.buildContext(false, 3));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1", ALERT_TAG + ":message2"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldLogSingleMessageForBacklog() throws Exception {
+        this.setLimitOverflow(0);
+        this.subject.execute(this.buildContext(true, 3));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":backlog"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldTagMessagesAboveLimitAsOverflow() throws Exception {
+        this.setLimitOverflow(2);
+        this.subject.execute(this.buildContext(false, 3));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1", OVERFLOW_TAG + ":message2"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldKeepBacklogOrderAndOverflowSplitWhenRenderingInParallel() throws Exception {
+        int backlogSize = 1000;
+        int limitOverflow = 300;
+        this.setConfig(limitOverflow, 10);
+        this.parallelRenderer.startAsync().awaitRunning();
+        try {
+            this.subject.execute(this.buildContext(false, backlogSize));
+        } finally {
+            this.parallelRenderer.stopAsync().awaitTerminated();
+        }
+
+        List<String> expectedLogs = new ArrayList<>();
+        for (int i = 0; i < backlogSize; i++) {
+            String tag = (i < limitOverflow) ? ALERT_TAG : OVERFLOW_TAG;
+            expectedLogs.add(tag + ":message" + i);
+        }
+        Assert.assertEquals(expectedLogs, this.emittedLogs);
+        Assert.assertTrue(this.renderingThreads.stream().anyMatch(name -> name.startsWith("logging-alert-renderer-")));
+    }
+
+    @Test
+    public void executeShouldUpdateStatisticsOfNotification() throws Exception {
+        this.setLimitOverflow(2);
+        this.subject.execute(this.buildContext(false, 3));
+
+        NotificationStatistics.Entry entry = this.statistics.get(NOTIFICATION_ID);
+        Assert.assertEquals(1, entry.executions().sum());
+        Assert.assertEquals(2, entry.emitted().sum());
+        Assert.assertEquals(1, entry.overflowed().sum());
+        Assert.assertEquals(3, entry.render().snapshot().count());
+        Assert.assertEquals(3, entry.emission().snapshot().count());
+        Assert.assertEquals(3, entry.largestBacklog().get());
+    }
+
+    @Test
+    public void executeShouldTagMessagesAboveRateLimitAsOverflowAcrossAlerts() throws Exception {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessRateLimit(3)
+                .accessRateLimitPeriod(3600));
+        this.subject.execute(this.buildContext(false, 2));
+        this.subject.execute(this.buildContext(false, 2));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1", ALERT_TAG + ":message0", OVERFLOW_TAG + ":message1"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldCountMessagesAboveLimitInOverflowDigest() throws Exception {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessLimitOverflow(1)
+                .accessOverflowDigest(true));
+        this.subject.execute(this.buildContext(false, 3));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0"), this.emittedLogs);
+        verify(this.messageBodyBuilder, times(1)).buildMessageBodyForMessage(any(), any(), any());
+        Assert.assertEquals(1, this.overflowDigest.size());
+    }
+
+    @Test
+    public void executeShouldSuppressRepeatedLogsWithinDeduplicationWindow() throws Exception {
+        this.setLimitOverflow(0);
+        LoggingNotificationConfig notificationConfig = LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .dedupWindow(60)
+                .build();
+        this.subject.execute(this.buildContext(notificationConfig, 2));
+        this.subject.execute(this.buildContext(notificationConfig, 3));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1", ALERT_TAG + ":message2"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldNotSuppressLogWhichFailedToBeEmitted() throws Exception {
+        this.setLimitOverflow(0);
+        LoggingNotificationConfig notificationConfig = LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .dedupWindow(60)
+                .build();
+        this.failNextEmission = true;
+        Assert.assertThrows(IllegalStateException.class, () -> this.subject.execute(this.buildContext(notificationConfig, 1)));
+
+        this.subject.execute(this.buildContext(notificationConfig, 1));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0"), this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldOffloadToVirtualThreadWhenEnabled() throws Exception {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessLimitOverflow(0)
+                .accessOffloadExecution(true));
+        OffloadExecutor offloadExecutor = new OffloadExecutor(this.configCache, new MetricRegistry());
+        offloadExecutor.startAsync().awaitRunning();
+        this.subject = this.buildSubject(offloadExecutor);
+
+        this.subject.execute(this.buildContext(false, 2));
+        offloadExecutor.stopAsync().awaitTerminated();
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1"), this.emittedLogs);
+        Assert.assertEquals(List.of(true, true), this.emittedFromVirtualThread);
+    }
+
+    @Test
+    public void executeShouldNotOffloadWhenAFullQueueShouldFail() throws Exception {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessLimitOverflow(0)
+                .accessOffloadExecution(true)
+                .accessAsyncEmission(true)
+                .accessAsyncFullQueuePolicy(FullQueuePolicy.FAIL));
+        OffloadExecutor offloadExecutor = new OffloadExecutor(this.configCache, new MetricRegistry());
+        offloadExecutor.startAsync().awaitRunning();
+        this.subject = this.buildSubject(offloadExecutor);
+        this.failNextEmission = true;
+
+        Assert.assertThrows(IllegalStateException.class, () -> this.subject.execute(this.buildContext(false, 1)));
+        offloadExecutor.stopAsync().awaitTerminated();
+
+        Assert.assertEquals(0, offloadExecutor.inFlight());
+    }
+
+    @Test
+    public void executeShouldCountEmittedAndOverflowedLogsPerAlertTag() throws Exception {
+        this.setLimitOverflow(2);
+        this.subject.execute(this.buildContext(false, 3));
+
+        Assert.assertEquals(2, this.metrics.emitted(ALERT_TAG).getCount());
+        Assert.assertEquals(1, this.metrics.overflowed(ALERT_TAG).getCount());
+        Assert.assertEquals(1, this.metrics.notifications().getCount());
+    }
+
+    @Test
+    public void executeShouldEncodeJsonFieldsWithoutTemplate() throws Exception {
+        this.setLimitOverflow(0);
+        when(this.messageBodyBuilder.buildLoggingAlertFields(any(), any(), anyLong()))
+                .thenReturn(new LoggingAlertFields("alertId", "title", "low", this.dummyTime, "url", 0));
+        LoggingNotificationConfig notificationConfig = LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .outputFormat(OutputFormat.JSON)
+                .jsonFields(List.of("logging_alert.id", "message.id"))
+                .build();
+        this.subject.execute(this.buildContext(notificationConfig, 2));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":{\"logging_alert.id\":\"alertId\",\"message.id\":\"message0\"}",
+                ALERT_TAG + ":{\"logging_alert.id\":\"alertId\",\"message.id\":\"message1\"}"), this.emittedLogs);
+        verify(this.messageBodyBuilder, times(0)).buildEventModel(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    public void executeShouldLogNumberOfOmittedMessagesWhenBacklogIsCapped() throws Exception {
+        this.setConfig(LoggingAlertConfig.createDefault().toBuilder()
+                .accessLimitOverflow(0)
+                .accessParallelRenderingThreshold(0)
+                .accessBacklogCap(2));
+        when(this.messageBodyBuilder.getAlertIdentifier(any())).thenReturn("alertId");
+        this.subject.execute(this.buildContext(false, 5));
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":message0", ALERT_TAG + ":message1",
+                ALERT_TAG + ":type: omitted_messages | id: alertId | omitted_messages: 3"), this.emittedLogs);
+        verify(this.messageBodyBuilder).buildEventModel(any(), any(), any(), eq(3L));
+    }
+
+    @Test
+    public void executeShouldLogEachEventOfCoalescedBatchWithItsOwnIdentifier() throws Exception {
+        this.setLimitOverflow(0);
+        this.coalescer.startAsync().awaitRunning();
+        when(this.messageBodyBuilder.buildLoggingAlertFields(any(), any(), anyLong())).thenAnswer(invocation ->
+                new LoggingAlertFields(invocation.<EventNotificationContext>getArgument(0).event().id(), "title", "low", this.dummyTime, "url", 0));
+        LoggingNotificationConfig notificationConfig = LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .outputFormat(OutputFormat.JSON)
+                .jsonFields(List.of("logging_alert.id"))
+                .coalesceWindow(60000)
+                .coalesceMaxEvents(2)
+                .build();
+        EventNotificationContext firstContext = this.buildContext(notificationConfig, 1, "event1");
+        EventNotificationContext secondContext = this.buildContext(notificationConfig, 1, "event2");
+
+        this.subject.execute(firstContext);
+        Assert.assertEquals(List.of(), this.emittedLogs);
+        this.subject.execute(secondContext);
+        this.coalescer.stopAsync().awaitTerminated();
+
+        Assert.assertEquals(List.of(ALERT_TAG + ":{\"logging_alert.id\":\"event1\"}", ALERT_TAG + ":{\"logging_alert.id\":\"event2\"}"),
+                this.emittedLogs);
+    }
+
+    @Test
+    public void executeShouldBuildEventDefinitionModelOncePerCoalescedBatch() throws Exception {
+        this.setLimitOverflow(0);
+        this.coalescer.startAsync().awaitRunning();
+        LoggingNotificationConfig notificationConfig = LoggingNotificationConfig.builder()
+                .alertTag(ALERT_TAG)
+                .coalesceWindow(60000)
+                .coalesceMaxEvents(2)
+                .build();
+
+        this.subject.execute(this.buildContext(notificationConfig, 1));
+        this.subject.execute(this.buildContext(notificationConfig, 1));
+        this.coalescer.stopAsync().awaitTerminated();
+
+        verify(this.messageBodyBuilder, times(1)).buildDefinitionModel(any());
+        verify(this.messageBodyBuilder, times(2)).buildEventModel(any(), any(), any(), anyLong());
+    }
+}
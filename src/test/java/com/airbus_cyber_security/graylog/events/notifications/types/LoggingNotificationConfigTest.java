@@ -25,6 +25,7 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import java.util.HashSet;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -70,4 +71,17 @@ public class LoggingNotificationConfigTest {
         assertThat(validationResult.failed()).isFalse();
         assertThat(validationResult.getErrors().size()).isEqualTo(0);
     }
+
+    @Test
+    public void testValidateShouldRejectUnknownJsonFields() {
+        LoggingNotificationConfig config = LoggingNotificationConfig.Builder.create()
+                .alertTag("alert_tag_test")
+                .outputFormat(OutputFormat.JSON)
+                .jsonFields(List.of("event.id", "event.unknown", "message.fields."))
+                .build();
+
+        ValidationResult validationResult = config.validate();
+
+        assertThat(validationResult.getErrors().get("json_fields")).hasSize(2);
+    }
 }
@@ -29,6 +29,10 @@ import org.graylog.events.notifications.EventNotificationSettings;
 import org.graylog.events.processor.EventDefinitionDto;
 import org.graylog.events.processor.EventProcessorConfig;
 import org.graylog.events.processor.aggregation.AggregationEventProcessorConfig;
+import org.graylog.events.contentpack.entities.EventProcessorConfigEntity;
+import org.graylog.security.UserContext;
+import org.graylog2.contentpacks.EntityDescriptorIds;
+import org.graylog2.plugin.rest.ValidationResult;
 import org.graylog.scheduler.JobSchedule;
 import org.graylog.scheduler.JobTriggerDto;
 import org.graylog2.plugin.Tools;
@@ -212,4 +216,104 @@ public class MessagesURLBuilderTest {
         String messageUrl = this.subject.buildMessagesUrl(context, this.dummyTime);
         Assert.assertTrue(messageUrl.contains(expectedValue));
     }
+
+    @Test
+    public void getStreamSearchUrlShouldOnlyChangeGroupByFieldsBetweenEventsOfTheSameDefinition() {
+        EventDto firstEvent = dummyEventBuilder().groupByFields(ImmutableMap.of("user", "x")).timerangeStart(this.dummyTime).build();
+        EventDto secondEvent = dummyEventBuilder().groupByFields(ImmutableMap.of("user", "y")).timerangeStart(this.dummyTime).build();
+
+        this.subject.buildMessagesUrl(dummyContextBuilder(false).event(firstEvent).build(), this.dummyTime);
+        String messageUrl = this.subject.buildMessagesUrl(dummyContextBuilder(false).event(secondEvent).build(), this.dummyTime);
+
+        Assert.assertTrue(messageUrl.contains("(" + TEST_SEARCH_QUERY + ") AND (user:y)"));
+    }
+
+    @Test
+    public void getStreamSearchUrlShouldContainUpdatedSearchQueryWhenDefinitionChanges() {
+        EventDto event = dummyEventBuilder().timerangeStart(this.dummyTime).build();
+        EventNotificationContext context = dummyContextBuilder(false).event(event).build();
+        this.subject.buildMessagesUrl(context, this.dummyTime);
+
+        AggregationEventProcessorConfig config = (AggregationEventProcessorConfig) context.eventDefinition().get().config();
+        EventDefinitionDto updatedDefinition = context.eventDefinition().get().toBuilder()
+                .config(config.toBuilder().query("dest: y").build())
+                .build();
+        String messageUrl = this.subject.buildMessagesUrl(context.toBuilder().eventDefinition(updatedDefinition).build(), this.dummyTime);
+
+        Assert.assertTrue(messageUrl.contains("&q=dest: y"));
+    }
+
+    public static abstract class DummyCorrelationCountProcessorConfig implements EventProcessorConfig {
+        @Override
+        public String type() {
+            return "correlation-count";
+        }
+
+        @Override
+        public ValidationResult validate(UserContext userContext) {
+            return new ValidationResult();
+        }
+
+        @Override
+        public EventProcessorConfigEntity toContentPackEntity(EntityDescriptorIds entityDescriptorIds) {
+            return null;
+        }
+
+        public abstract String searchQuery();
+
+        public abstract String additionalSearchQuery();
+    }
+
+    // mimics the AutoValue implementation of the configuration
+    public static class GeneratedDummyCorrelationCountProcessorConfig extends DummyCorrelationCountProcessorConfig {
+        @Override
+        public String searchQuery() {
+            return TEST_SEARCH_QUERY;
+        }
+
+        @Override
+        public String additionalSearchQuery() {
+            return "dest: y";
+        }
+    }
+
+    public static abstract class InvalidCorrelationCountProcessorConfig implements EventProcessorConfig {
+        @Override
+        public String type() {
+            return "correlation-count";
+        }
+
+        @Override
+        public ValidationResult validate(UserContext userContext) {
+            return new ValidationResult();
+        }
+
+        @Override
+        public EventProcessorConfigEntity toContentPackEntity(EntityDescriptorIds entityDescriptorIds) {
+            return null;
+        }
+    }
+
+    public static class GeneratedInvalidCorrelationCountProcessorConfig extends InvalidCorrelationCountProcessorConfig {
+    }
+
+    private EventNotificationContext buildContextWithConfig(EventProcessorConfig config) {
+        EventDefinitionDto eventDefinition = buildDummyEventDefinition(true).toBuilder().config(config).build();
+        EventDto event = dummyEventBuilder().timerangeStart(this.dummyTime).build();
+        return dummyContextBuilder(true).eventDefinition(eventDefinition).event(event).build();
+    }
+
+    @Test
+    public void getStreamSearchUrlShouldContainCorrelationCountSearchQueries() {
+        EventNotificationContext context = buildContextWithConfig(new GeneratedDummyCorrelationCountProcessorConfig());
+        String messageUrl = this.subject.buildMessagesUrl(context, this.dummyTime);
+        Assert.assertTrue(messageUrl.contains("&q=(" + TEST_SEARCH_QUERY + ") AND (dest: y)"));
+    }
+
+    @Test
+    public void getStreamSearchUrlShouldNotFailWhenCorrelationCountSignatureChanged() {
+        EventNotificationContext context = buildContextWithConfig(new GeneratedInvalidCorrelationCountProcessorConfig());
+        String messageUrl = this.subject.buildMessagesUrl(context, this.dummyTime);
+        Assert.assertFalse(messageUrl.contains("&q="));
+    }
 }
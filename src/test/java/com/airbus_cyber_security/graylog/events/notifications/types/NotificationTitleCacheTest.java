@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.airbus_cyber_security.graylog.events.notifications.EventFixtures;
+import org.graylog.events.notifications.DBNotificationService;
+import org.graylog.events.notifications.EventNotificationContext;
+import org.graylog.events.notifications.NotificationDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NotificationTitleCacheTest {
+
+    private static final String NOTIFICATION_ID = "NotificationId";
+
+    private DBNotificationService notificationService;
+
+    private NotificationTitleCache subject;
+
+    @Before
+    public void setup() {
+        this.notificationService = mock(DBNotificationService.class);
+        this.subject = new NotificationTitleCache(this.notificationService);
+    }
+
+    private EventNotificationContext buildContext(LoggingNotificationConfig config) {
+        return EventFixtures.buildContext(NOTIFICATION_ID, config, EventFixtures.eventBuilder().build());
+    }
+
+    private void storeNotification(String title, LoggingNotificationConfig config) {
+        NotificationDto notification = NotificationDto.builder()
+                .id(NOTIFICATION_ID)
+                .title(title)
+                .description("")
+                .config(config)
+                .build();
+        when(this.notificationService.get(NOTIFICATION_ID)).thenReturn(Optional.of(notification));
+    }
+
+    @Test
+    public void getShouldReadTheDatabaseOnlyOnce() {
+        LoggingNotificationConfig config = LoggingNotificationConfig.builder().build();
+        this.storeNotification("Title", config);
+
+        Assert.assertEquals("Title", this.subject.get(this.buildContext(config)));
+        Assert.assertEquals("Title", this.subject.get(this.buildContext(config)));
+
+        verify(this.notificationService, times(1)).get(NOTIFICATION_ID);
+        Assert.assertEquals(1, this.subject.hitCount());
+        Assert.assertEquals(1, this.subject.missCount());
+    }
+
+    @Test
+    public void getShouldReloadTitleWhenNotificationConfigurationChanges() {
+        LoggingNotificationConfig config = LoggingNotificationConfig.builder().build();
+        this.storeNotification("Title", config);
+        this.subject.get(this.buildContext(config));
+
+        LoggingNotificationConfig updatedConfig = LoggingNotificationConfig.builder().alertTag("other").build();
+        this.storeNotification("Updated Title", updatedConfig);
+
+        Assert.assertEquals("Updated Title", this.subject.get(this.buildContext(updatedConfig)));
+    }
+
+    @Test
+    public void getShouldReturnDefaultTitleWhenNotificationIsMissing() {
+        when(this.notificationService.get(NOTIFICATION_ID)).thenReturn(Optional.empty());
+        LoggingNotificationConfig config = LoggingNotificationConfig.builder().build();
+
+        Assert.assertEquals("No Title Notification", this.subject.get(this.buildContext(config)));
+    }
+}
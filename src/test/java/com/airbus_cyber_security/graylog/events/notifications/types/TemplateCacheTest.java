@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.notifications.types;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TemplateCacheTest {
+
+    private static final String NOTIFICATION_ID = "NotificationTestId";
+
+    private TemplateCache subject;
+
+    @Before
+    public void setup() {
+        this.subject = new TemplateCache();
+    }
+
+    @Test
+    public void getShouldReplaceLineBreaksBySeparator() {
+        CompiledTemplate template = this.subject.get(NOTIFICATION_ID, "a: ${a}\nb: ${b}", " | ");
+        String result = template.transform(ImmutableMap.of("a", "x", "b", "y"));
+        Assert.assertEquals("a: x | b: y", result);
+    }
+
+    @Test
+    public void getShouldReuseTemplateWhenConfigurationIsUnchanged() {
+        CompiledTemplate first = this.subject.get(NOTIFICATION_ID, "a: ${a}", " | ");
+        CompiledTemplate second = this.subject.get(NOTIFICATION_ID, "a: ${a}", " | ");
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, this.subject.hitCount());
+        Assert.assertEquals(1, this.subject.missCount());
+    }
+
+    @Test
+    public void getShouldCompileAgainWhenLogBodyChanges() {
+        this.subject.get(NOTIFICATION_ID, "a: ${a}", " | ");
+        CompiledTemplate template = this.subject.get(NOTIFICATION_ID, "b: ${a}", " | ");
+        Assert.assertEquals("b: x", template.transform(ImmutableMap.of("a", "x")));
+        Assert.assertEquals(2, this.subject.missCount());
+        Assert.assertEquals(1, this.subject.size());
+    }
+
+    @Test
+    public void getShouldCompileAgainWhenSeparatorChanges() {
+        this.subject.get(NOTIFICATION_ID, "a: ${a}\nb", " | ");
+        CompiledTemplate template = this.subject.get(NOTIFICATION_ID, "a: ${a}\nb", " ; ");
+        Assert.assertEquals("a: x ; b", template.transform(ImmutableMap.of("a", "x")));
+        Assert.assertEquals(0, this.subject.hitCount());
+    }
+
+    @Test
+    public void getJsonLayoutShouldCompileAgainWhenJsonFieldsChange() {
+        JsonLayout first = this.subject.getJsonLayout(NOTIFICATION_ID, List.of("event.id"));
+        Assert.assertSame(first, this.subject.getJsonLayout(NOTIFICATION_ID, List.of("event.id")));
+        JsonLayout layout = this.subject.getJsonLayout(NOTIFICATION_ID, List.of("event.id", "message.id"));
+        Assert.assertEquals(2, layout.fields().size());
+        Assert.assertEquals(2, this.subject.missCount());
+    }
+}
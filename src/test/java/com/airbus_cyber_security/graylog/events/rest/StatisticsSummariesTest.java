@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2018 Airbus CyberSecurity (SAS)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package com.airbus_cyber_security.graylog.events.rest;
+
+import com.airbus_cyber_security.graylog.events.notifications.metrics.NotificationStatistics;
+import com.airbus_cyber_security.graylog.events.notifications.types.NotificationTitleCache;
+import com.airbus_cyber_security.graylog.events.notifications.types.TemplateCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graylog.events.notifications.DBNotificationService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+public class StatisticsSummariesTest {
+
+    private static final String NOTIFICATION_ID = "NotificationId";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private NotificationStatistics statistics;
+
+    private StatisticsSummaries subject;
+
+    @Before
+    public void setup() {
+        this.statistics = new NotificationStatistics();
+        this.subject = new StatisticsSummaries(this.statistics, new TemplateCache(),
+                new NotificationTitleCache(mock(DBNotificationService.class)));
+    }
+
+    // Note: the resource responds 404 Not Found in this case
+    @Test
+    public void ofShouldReturnEmptyWhenNotificationHasNoStatistics() {
+        Assert.assertTrue(this.subject.of(NOTIFICATION_ID).isEmpty());
+    }
+
+    @Test
+    public void ofShouldSerializeNotificationSummary() {
+        NotificationStatistics.Entry entry = this.statistics.get(NOTIFICATION_ID);
+        entry.executions().increment();
+        entry.emitted().add(3);
+        entry.overflowed().add(2);
+        entry.render().record(2_000_000);
+        entry.largestBacklog().record(7);
+
+        JsonNode summary = this.objectMapper.valueToTree(this.subject.of(NOTIFICATION_ID).orElseThrow());
+
+        Assert.assertEquals(1, summary.get("executions").asLong());
+        Assert.assertEquals(3, summary.get("emitted_lines").asLong());
+        Assert.assertEquals(2, summary.get("overflowed_lines").asLong());
+        Assert.assertEquals(1, summary.get("render_latency").get("count").asLong());
+        Assert.assertTrue(summary.get("render_latency").has("p50_us"));
+        Assert.assertTrue(summary.get("render_latency").has("p99_us"));
+        Assert.assertEquals(0, summary.get("emission_latency").get("count").asLong());
+        Assert.assertEquals(7, summary.get("largest_recent_backlog").asLong());
+    }
+
+    @Test
+    public void allShouldSerializeStatisticsOfAllNotifications() {
+        this.statistics.get(NOTIFICATION_ID).executions().increment();
+
+        JsonNode summary = this.objectMapper.valueToTree(this.subject.all());
+
+        Assert.assertTrue(summary.get("template_cache").has("hit_rate"));
+        Assert.assertTrue(summary.get("title_cache").has("hits"));
+        Assert.assertEquals(1, summary.get("notifications").get(NOTIFICATION_ID).get("executions").asLong());
+    }
+}
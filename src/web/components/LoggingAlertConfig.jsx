@@ -44,6 +44,38 @@ const DEFAULT_CONFIG = {
     log_body: DEFAULT_BODY_TEMPLATE,
     alert_tag: 'LoggingAlert',
     overflow_tag: 'LoggingOverflow',
+    async_emission: false,
+    async_queue_capacity: 65536,
+    async_full_queue_policy: 'BLOCK',
+    parallel_rendering_threshold: 1000,
+    backlog_cap: 0,
+    offload_execution: false,
+    offload_concurrency: 256,
+    rate_limit_period: 60,
+    cluster_budget: 0,
+    cluster_budget_period: 60,
+    cluster_budget_lease: 100,
+    overflow_digest: false,
+    overflow_digest_interval: 60,
+    sink: 'LOGGER',
+    file_sink_directory: 'data/logging-alert',
+    file_sink_segment_size: 64,
+    file_sink_roll_interval: 3600,
+    file_sink_sync_batch: 1000,
+    spool: false,
+    spool_directory: 'data/logging-alert-spool',
+    spool_max_size: 256,
+};
+
+const FULL_QUEUE_POLICIES = {
+    BLOCK: 'Wait for room in the queue',
+    DROP_TO_OVERFLOW: 'Log with the overflow tag',
+    FAIL: 'Fail the notification (retried later)',
+};
+
+const SINKS = {
+    LOGGER: 'Graylog logger (log4j)',
+    MAPPED_FILE: 'Memory-mapped segment files',
 };
 
 const _displayOptionalConfigurationValue = (value) => {
@@ -53,6 +85,13 @@ const _displayOptionalConfigurationValue = (value) => {
     return value;
 };
 
+const _displayBooleanConfigurationValue = (value) => {
+    if (value) {
+        return 'yes';
+    }
+    return 'no';
+};
+
 const LoggingAlertConfig = ({ config = DEFAULT_CONFIG, updateConfig }) => {
     const [nextConfiguration, setNextConfiguration] = useState(config);
     const [showModal, setShowModal] = useState(false);
@@ -91,6 +130,12 @@ const LoggingAlertConfig = ({ config = DEFAULT_CONFIG, updateConfig }) => {
         };
     };
 
+    const _onCheckboxUpdate = (field) => {
+        return e => {
+            _updateConfigurationField(field, e.target.checked);
+        };
+    };
+
     return (
         <div>
             <h3>Logging Alert Notification Configuration</h3>
@@ -131,6 +176,138 @@ const LoggingAlertConfig = ({ config = DEFAULT_CONFIG, updateConfig }) => {
                     {_displayOptionalConfigurationValue(config.overflow_tag)}
                 </dd>
             </dl>
+            <dl className="deflist">
+                <dt>Rate Limit: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.rate_limit)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Rate Limit Period (seconds): </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.rate_limit_period)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Cluster Budget: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.cluster_budget)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Cluster Budget Period (seconds): </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.cluster_budget_period)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Cluster Budget Lease: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.cluster_budget_lease)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Overflow Digest: </dt>
+                <dd>
+                    {_displayBooleanConfigurationValue(config.overflow_digest)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Overflow Digest Interval (seconds): </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.overflow_digest_interval)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Asynchronous Emission: </dt>
+                <dd>
+                    {_displayBooleanConfigurationValue(config.async_emission)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Asynchronous Queue Capacity: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.async_queue_capacity)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Full Queue Policy: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(FULL_QUEUE_POLICIES[config.async_full_queue_policy])}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Parallel Rendering Threshold: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.parallel_rendering_threshold)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Backlog Cap: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.backlog_cap)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Offload Execution: </dt>
+                <dd>
+                    {_displayBooleanConfigurationValue(config.offload_execution)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Offload Concurrency: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.offload_concurrency)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Sink: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(SINKS[config.sink])}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>File Sink Directory: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.file_sink_directory)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>File Sink Segment Size: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.file_sink_segment_size)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>File Sink Roll Interval: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.file_sink_roll_interval)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>File Sink Sync Batch: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.file_sink_sync_batch)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Spool: </dt>
+                <dd>
+                    {_displayBooleanConfigurationValue(config.spool)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Spool Directory: </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.spool_directory)}
+                </dd>
+            </dl>
+            <dl className="deflist">
+                <dt>Spool Maximum Size (megabytes): </dt>
+                <dd>
+                    {_displayOptionalConfigurationValue(config.spool_max_size)}
+                </dd>
+            </dl>
 
             <IfPermitted permissions="clusterconfigentry:edit">
                 <Button bsStyle="info" bsSize="xs" onClick={_openModal}>
@@ -191,6 +368,210 @@ const LoggingAlertConfig = ({ config = DEFAULT_CONFIG, updateConfig }) => {
                         value={nextConfiguration.overflow_tag}
                         onChange={_onUpdate('overflow_tag')}
                     />
+                    <Input
+                        id="rate_limit"
+                        type="number"
+                        label="Rate Limit"
+                        name="rate_limit"
+                        help="Number of generated logs per alert tag and per period, over all the alerts, from which they are tagged as overflow (0 to disable)"
+                        value={nextConfiguration.rate_limit}
+                        onChange={_onUpdate('rate_limit')}
+                    />
+                    <Input
+                        id="rate_limit_period"
+                        type="number"
+                        label="Rate Limit Period"
+                        name="rate_limit_period"
+                        help="Duration in seconds over which the rate limit applies"
+                        value={nextConfiguration.rate_limit_period}
+                        onChange={_onUpdate('rate_limit_period')}
+                    />
+                    <Input
+                        id="cluster_budget"
+                        type="number"
+                        label="Cluster Budget"
+                        name="cluster_budget"
+                        help="Maximum number of logs emitted with an alert tag over the cluster period by all the Graylog nodes together, the next ones are tagged as overflow (0 to disable)"
+                        value={nextConfiguration.cluster_budget}
+                        onChange={_onUpdate('cluster_budget')}
+                    />
+                    <Input
+                        id="cluster_budget_period"
+                        type="number"
+                        label="Cluster Budget Period"
+                        name="cluster_budget_period"
+                        help="Duration in seconds of the windows over which the cluster budget applies"
+                        value={nextConfiguration.cluster_budget_period}
+                        onChange={_onUpdate('cluster_budget_period')}
+                    />
+                    <Input
+                        id="cluster_budget_lease"
+                        type="number"
+                        label="Cluster Budget Lease"
+                        name="cluster_budget_lease"
+                        help="Number of logs of the cluster budget a node reserves at once in the database"
+                        value={nextConfiguration.cluster_budget_lease}
+                        onChange={_onUpdate('cluster_budget_lease')}
+                    />
+                    <Input
+                        id="overflow_digest"
+                        type="checkbox"
+                        label="Overflow Digest"
+                        name="overflow_digest"
+                        help="Count the overflowed logs and periodically log a summary of them, instead of logging each of them with the overflow tag"
+                        checked={nextConfiguration.overflow_digest}
+                        onChange={_onCheckboxUpdate('overflow_digest')}
+                    />
+                    <Input
+                        id="overflow_digest_interval"
+                        type="number"
+                        label="Overflow Digest Interval"
+                        name="overflow_digest_interval"
+                        help="Duration in seconds over which the overflowed logs are counted before their summary is logged"
+                        value={nextConfiguration.overflow_digest_interval}
+                        onChange={_onUpdate('overflow_digest_interval')}
+                    />
+                    <Input
+                        id="async_emission"
+                        type="checkbox"
+                        label="Asynchronous Emission"
+                        name="async_emission"
+                        help="Emit the logs from a dedicated thread instead of the notification job, so that a slow log appender does not delay the notifications"
+                        checked={nextConfiguration.async_emission}
+                        onChange={_onCheckboxUpdate('async_emission')}
+                    />
+                    <Input
+                        id="async_queue_capacity"
+                        type="number"
+                        label="Asynchronous Queue Capacity"
+                        name="async_queue_capacity"
+                        help="Maximum number of logs waiting to be emitted (taken into account when the first log is queued after the Graylog server starts)"
+                        value={nextConfiguration.async_queue_capacity}
+                        onChange={_onUpdate('async_queue_capacity')}
+                    />
+                    <Input
+                        id="async_full_queue_policy"
+                        type="select"
+                        label="Full Queue Policy"
+                        name="async_full_queue_policy"
+                        help="What to do with a log when the asynchronous queue is full"
+                        value={nextConfiguration.async_full_queue_policy}
+                        onChange={_onUpdate('async_full_queue_policy')}>
+                        {Object.entries(FULL_QUEUE_POLICIES).map(([policy, description]) => (
+                            <option key={policy} value={policy}>{description}</option>
+                        ))}
+                    </Input>
+                    <Input
+                        id="parallel_rendering_threshold"
+                        type="number"
+                        label="Parallel Rendering Threshold"
+                        name="parallel_rendering_threshold"
+                        help="Number of messages in the backlog from which the logs are generated on several threads (0 to disable)"
+                        value={nextConfiguration.parallel_rendering_threshold}
+                        onChange={_onUpdate('parallel_rendering_threshold')}
+                    />
+                    <Input
+                        id="backlog_cap"
+                        type="number"
+                        label="Backlog Cap"
+                        name="backlog_cap"
+                        help="Maximum number of backlog messages kept for the logs of an alert, the others are only counted (0 to keep the whole backlog)"
+                        value={nextConfiguration.backlog_cap}
+                        onChange={_onUpdate('backlog_cap')}
+                    />
+                    <Input
+                        id="offload_execution"
+                        type="checkbox"
+                        label="Offload Execution"
+                        name="offload_execution"
+                        help="Run the notifications on virtual threads, so that the notification jobs do not wait for the backlog search, database reads and log appenders (failed notifications are then not retried)"
+                        checked={nextConfiguration.offload_execution}
+                        onChange={_onCheckboxUpdate('offload_execution')}
+                    />
+                    <Input
+                        id="offload_concurrency"
+                        type="number"
+                        label="Offload Concurrency"
+                        name="offload_concurrency"
+                        help="Maximum number of notifications running on virtual threads at once, the next ones run on the notification job (taken into account when the Graylog server starts)"
+                        value={nextConfiguration.offload_concurrency}
+                        onChange={_onUpdate('offload_concurrency')}
+                    />
+                    <Input
+                        id="sink"
+                        type="select"
+                        label="Sink"
+                        name="sink"
+                        help="Where the generated logs are written"
+                        value={nextConfiguration.sink}
+                        onChange={_onUpdate('sink')}>
+                        {Object.entries(SINKS).map(([sink, description]) => (
+                            <option key={sink} value={sink}>{description}</option>
+                        ))}
+                    </Input>
+                    <Input
+                        id="file_sink_directory"
+                        type="text"
+                        label="File Sink Directory"
+                        name="file_sink_directory"
+                        help="Directory of the segment files, relative to the working directory of Graylog"
+                        value={nextConfiguration.file_sink_directory}
+                        onChange={_onUpdate('file_sink_directory')}
+                    />
+                    <Input
+                        id="file_sink_segment_size"
+                        type="number"
+                        label="File Sink Segment Size"
+                        name="file_sink_segment_size"
+                        help="Size in megabytes from which a new segment file is started"
+                        value={nextConfiguration.file_sink_segment_size}
+                        onChange={_onUpdate('file_sink_segment_size')}
+                    />
+                    <Input
+                        id="file_sink_roll_interval"
+                        type="number"
+                        label="File Sink Roll Interval"
+                        name="file_sink_roll_interval"
+                        help="Duration in seconds after which a new segment file is started (0 to only roll on size)"
+                        value={nextConfiguration.file_sink_roll_interval}
+                        onChange={_onUpdate('file_sink_roll_interval')}
+                    />
+                    <Input
+                        id="file_sink_sync_batch"
+                        type="number"
+                        label="File Sink Sync Batch"
+                        name="file_sink_sync_batch"
+                        help="Number of logs after which the segment file is forced to disk (0 to only force when the segment is closed)"
+                        value={nextConfiguration.file_sink_sync_batch}
+                        onChange={_onUpdate('file_sink_sync_batch')}
+                    />
+                    <Input
+                        id="spool"
+                        type="checkbox"
+                        label="Spool"
+                        name="spool"
+                        help="Journal the logs on disk before they are emitted, so that they are emitted again after a restart when the sink failed"
+                        checked={nextConfiguration.spool}
+                        onChange={_onCheckboxUpdate('spool')}
+                    />
+                    <Input
+                        id="spool_directory"
+                        type="text"
+                        label="Spool Directory"
+                        name="spool_directory"
+                        help="Directory of the spool segment files on each Graylog node (taken into account when the Graylog server starts)"
+                        value={nextConfiguration.spool_directory}
+                        onChange={_onUpdate('spool_directory')}
+                    />
+                    <Input
+                        id="spool_max_size"
+                        type="number"
+                        label="Spool Maximum Size (megabytes)"
+                        name="spool_max_size"
+                        help="Maximum size of the logs waiting in the spool, the next logs are emitted without being spooled (taken into account when the Graylog server starts)"
+                        value={nextConfiguration.spool_max_size}
+                        onChange={_onUpdate('spool_max_size')}
+                    />
 
                 </fieldset>
             </BootstrapModalForm>
@@ -30,6 +30,13 @@ import connect from 'stores/connect';
 import type { EventNotification } from 'stores/event-notifications/EventNotificationsStore';
 const LOGGING_ALERT_CONFIG = 'com.airbus_cyber_security.graylog.events.config.LoggingAlertConfig';
 
+const OUTPUT_FORMATS = {
+    TEMPLATE: 'Body template',
+    JSON: 'JSON object of the listed fields',
+};
+
+const SYSLOG_PROTOCOLS = ['TCP', 'UDP'];
+
 type Props = {
     config: EventNotification['config'];
     validation: { errors: { [key: string]: Array<string> } };
@@ -97,6 +104,30 @@ class LoggingAlertForm extends React.Component<Props>  {
 
         return (
             <React.Fragment>
+                <Input
+                    id="output_format"
+                    type="select"
+                    label="Output Format"
+                    name="output_format"
+                    help="How the logs are generated"
+                    value={config.output_format || 'TEMPLATE'}
+                    onChange={this.handleChange}>
+                    {Object.entries(OUTPUT_FORMATS).map(([format, description]) => (
+                        <option key={format} value={format}>{description}</option>
+                    ))}
+                </Input>
+                {config.output_format === 'JSON' && (
+                    <Input
+                        id="json_fields"
+                        type="text"
+                        name="json_fields"
+                        label="JSON Fields"
+                        bsStyle={validation.errors.json_fields ? 'error' : null}
+                        help={lodash.get(validation, 'errors.json_fields[0]', 'Comma separated fields of the JSON logs (for instance logging_alert.id,event.message,message.fields.src_ip)')}
+                        value={(config.json_fields || []).join(',')}
+                        onChange={(event) => this.handleFieldsChange('json_fields')(event.target.value)}
+                    />
+                )}
                 <FormGroup controlId="log_body" validationState={validation.errors.log_body ? 'error' : null}>
                     <ControlLabel>Body Template</ControlLabel>
                     <SourceCodeEditor
@@ -133,6 +164,75 @@ class LoggingAlertForm extends React.Component<Props>  {
                         Check this box to send only one message by alert
                     </HelpBlock>
 	            </div>
+	            <ControlLabel>Deduplication Window <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="dedup_window"
+                    type="number"
+                    name="dedup_window"
+                    help="Duration in seconds during which identical logs are suppressed, they are then logged once more with their repeat count (0 to disable)"
+                    value={config.dedup_window || 0}
+                    onChange={this.handleChange}
+                />
+	            <ControlLabel>Deduplication Fields <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="dedup_fields"
+                    type="text"
+                    name="dedup_fields"
+                    help="Comma separated fields identifying identical logs (for instance logging_alert.severity,src_ip), the whole log content when empty"
+                    value={(config.dedup_fields || []).join(',')}
+                    onChange={(event) => this.handleFieldsChange('dedup_fields')(event.target.value)}
+                />
+	            <ControlLabel>Syslog Host <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="syslog_host"
+                    type="text"
+                    name="syslog_host"
+                    help="Syslog receiver to send the logs to (RFC 5424), rather than to the sink of the plugin configuration"
+                    value={config.syslog_host || ''}
+                    onChange={this.handleChange}
+                />
+	            <ControlLabel>Syslog Port <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="syslog_port"
+                    type="number"
+                    name="syslog_port"
+                    bsStyle={validation.errors.syslog_port ? 'error' : null}
+                    help={lodash.get(validation, 'errors.syslog_port[0]', 'Port of the syslog receiver')}
+                    value={config.syslog_port || 514}
+                    onChange={this.handleChange}
+                />
+	            <ControlLabel>Syslog Protocol <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="syslog_protocol"
+                    type="select"
+                    name="syslog_protocol"
+                    help="Transport to the syslog receiver"
+                    value={config.syslog_protocol || 'TCP'}
+                    onChange={this.handleChange}>
+                    {SYSLOG_PROTOCOLS.map((protocol) => (
+                        <option key={protocol} value={protocol}>{protocol}</option>
+                    ))}
+                </Input>
+	            <ControlLabel>Coalescing Window <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="coalesce_window"
+                    type="number"
+                    name="coalesce_window"
+                    bsStyle={validation.errors.coalesce_window ? 'error' : null}
+                    help={lodash.get(validation, 'errors.coalesce_window[0]', 'Duration in milliseconds during which the events of the same event definition are buffered to be logged as a single batch (0 to disable)')}
+                    value={config.coalesce_window || 0}
+                    onChange={this.handleChange}
+                />
+	            <ControlLabel>Coalescing Maximum Events <small className="text-muted">(Optional)</small></ControlLabel>
+                <Input
+                    id="coalesce_max_events"
+                    type="number"
+                    name="coalesce_max_events"
+                    bsStyle={validation.errors.coalesce_max_events ? 'error' : null}
+                    help={lodash.get(validation, 'errors.coalesce_max_events[0]', 'Number of buffered events from which the batch is logged without waiting for the end of the window')}
+                    value={config.coalesce_max_events || 100}
+                    onChange={this.handleChange}
+                />
 	        </React.Fragment>
         );
     }
@@ -38,8 +38,16 @@ const LoggingAlertNotificationDetails = ({ notification }) => {
                                    </Well>
                                )}
             />
+            <ReadOnlyFormGroup label="Output Format" value={notification.config.output_format || 'TEMPLATE'} />
+            <ReadOnlyFormGroup label="JSON Fields" value={(notification.config.json_fields || []).join(', ')} />
             <ReadOnlyFormGroup label="Alert Tag" value={notification.config.alert_tag} />
             <ReadOnlyFormGroup label="Single Notification" value={notification.config.single_notification} />
+            <ReadOnlyFormGroup label="Syslog Receiver"
+                               value={notification.config.syslog_host ? `${notification.config.syslog_protocol || 'TCP'} ${notification.config.syslog_host}:${notification.config.syslog_port || 514}` : 'None'} />
+            <ReadOnlyFormGroup label="Deduplication Window" value={notification.config.dedup_window || 0} />
+            <ReadOnlyFormGroup label="Deduplication Fields" value={(notification.config.dedup_fields || []).join(', ')} />
+            <ReadOnlyFormGroup label="Coalescing Window"
+                               value={notification.config.coalesce_window ? `${notification.config.coalesce_window} ms, up to ${notification.config.coalesce_max_events || 100} events` : 'None'} />
         </>
     );
 };
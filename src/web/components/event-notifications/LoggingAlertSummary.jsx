@@ -43,6 +43,14 @@ class LoggingAlertSummary extends React.Component {
                     {notification.config.log_body || <em>Empty body</em>}
                   </Well>
               </tr>
+              <tr>
+                <td>Output Format:</td>
+                <td>{notification.config.output_format || 'TEMPLATE'}</td>
+              </tr>
+              <tr>
+                <td>JSON Fields:</td>
+                <td>{(notification.config.json_fields || []).join(', ')}</td>
+              </tr>
               <tr>
                 <td>Alert Tag:</td>
                 <td>{notification.config.alert_tag}</td>
@@ -51,6 +59,22 @@ class LoggingAlertSummary extends React.Component {
                 <td>Single Notification:</td>
                 <td>{notification.config.single_notification? 'true' : 'false'}</td>
               </tr>
+              <tr>
+                <td>Syslog Receiver:</td>
+                <td>{notification.config.syslog_host ? `${notification.config.syslog_protocol || 'TCP'} ${notification.config.syslog_host}:${notification.config.syslog_port || 514}` : <em>None</em>}</td>
+              </tr>
+              <tr>
+                <td>Deduplication Window:</td>
+                <td>{notification.config.dedup_window || 0}</td>
+              </tr>
+              <tr>
+                <td>Deduplication Fields:</td>
+                <td>{(notification.config.dedup_fields || []).join(', ')}</td>
+              </tr>
+              <tr>
+                <td>Coalescing Window:</td>
+                <td>{notification.config.coalesce_window ? `${notification.config.coalesce_window} ms, up to ${notification.config.coalesce_max_events || 100} events` : <em>None</em>}</td>
+              </tr>
             </React.Fragment>
         </CommonNotificationSummary>
     );